@@ -1,5 +1,9 @@
 package com.omar.chat_memory;
 
+import com.omar.chat_memory.memory.ChatMemoryRetentionProperties;
+import com.omar.chat_memory.memory.ConversationTurnQueue;
+import com.omar.chat_memory.memory.ConversationTurnQueue.ConversationBusyException;
+import com.omar.chat_memory.memory.LongTermMemoryAdvisor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.ai.chat.client.ChatClient;
@@ -7,9 +11,13 @@ import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.UUID;
 
@@ -19,11 +27,15 @@ import java.util.UUID;
  * Provides conversational AI capabilities with built-in memory and session management.
  * Maintains conversation context across requests using cookies for multi-turn dialogues.
  * <p>
- * Endpoint: POST /api/chat
+ * Endpoints:
+ * - POST /api/chat        - full answer in one response
+ * - POST /api/chat/stream - answer streamed as Server-Sent Events while it is generated
  * <p>
  * Features:
  * - Persistent conversation memory using chat memory advisor
+ * - Long-term recall of relevant past turns beyond the recent window
  * - Automatic conversation ID management via cookies
+ * - Turns of one conversation run one at a time, in order (concurrent sends are queued)
  * - Request/response logging for debugging
  * - Input validation and structured response format
  * <p>
@@ -43,17 +55,35 @@ class ChatController {
      */
     private final ChatClient chatClient;
 
+    /**
+     * Conversation lifetime; the conversation cookie expires together with the stored history.
+     */
+    private final ChatMemoryRetentionProperties retention;
+
+    /**
+     * Serializes turns per conversation so concurrent requests cannot interleave its history.
+     */
+    private final ConversationTurnQueue turns;
+
     /**
      * Constructor that builds the ChatClient with memory and logging capabilities.
      *
      * @param builder ChatClient builder for creating configured chat instances
      * @param chatMemory Chat memory implementation for maintaining conversation context
+     * @param retention Conversation TTL used as the cookie lifetime
+     * @param turns Per-conversation turn queue
+     * @param longTermMemoryAdvisor Advisor recalling relevant past turns of the conversation
      */
-    ChatController(ChatClient.Builder builder, ChatMemory chatMemory) {
+    ChatController(ChatClient.Builder builder, ChatMemory chatMemory, ChatMemoryRetentionProperties retention,
+                   ConversationTurnQueue turns, LongTermMemoryAdvisor longTermMemoryAdvisor) {
+        this.retention = retention;
+        this.turns = turns;
         this.chatClient = builder
                 .defaultAdvisors(
                         // Advisor for maintaining conversation memory across requests
                         MessageChatMemoryAdvisor.builder(chatMemory).build(),
+                        // Advisor recalling relevant older turns (runs right after the memory advisor)
+                        longTermMemoryAdvisor,
                         // Advisor for logging chat interactions
                         new SimpleLoggerAdvisor()
                 )
@@ -81,7 +111,7 @@ class ChatController {
      *
      * @apiNote Key Features:
      *          - Automatic conversation ID generation if not provided
-     *          - 1-hour session cookie lifetime
+     *          - Session cookie lives as long as the conversation (chat-memory.retention.ttl)
      *          - Memory persists conversation context across requests
      *          - All interactions are logged via SimpleLoggerAdvisor
      *          - Input validation ensures non-empty prompts
@@ -93,23 +123,99 @@ class ChatController {
         // Generate or use existing conversation ID for memory context
         String conversationId = convId == null ? UUID.randomUUID().toString() : convId;
 
-        // Process the chat prompt with conversation context
-        var response = this.chatClient.prompt()
-                .user(input.prompt())   // User's input message
-                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId)) // Set conversation context
-                .call().content();      // Execute and get AI response
-
-        // Create session cookie to maintain conversation continuity
-        ResponseCookie cookie = ResponseCookie.from("X-CONV-ID", conversationId)
-                .path("/")                      // Available across entire application
-                .maxAge(3600)     // 1 hour session duration
-                .build();
+        // Process the chat prompt with conversation context, after earlier turns of this conversation
+        String response;
+        try (var turn = turns.enter(conversationId)) {
+            response = this.chatClient.prompt()
+                    .user(input.prompt())   // User's input message
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId)) // Set conversation context
+                    .call().content();      // Execute and get AI response
+        }
 
         // Prepare response with AI content
         Output output = new Output(response);
 
         // Return response with conversation cookie
-        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString()).body(output);
+        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, conversationCookie(conversationId).toString())
+                .body(output);
+    }
+
+    /**
+     * Streaming variant of {@link #chat}: same memory advisor and conversation cookie, but the
+     * answer is sent as it is generated, so the first words show up after the model's
+     * first-token latency instead of after the whole generation.
+     * <p>
+     * Example Request:
+     * POST /api/chat/stream
+     * Cookie: X-CONV-ID=123e4567-e89b-12d3-a456-426614174000
+     * Body: {"prompt": "Hello, how are you?"}
+     * <p>
+     * Example Response (text/event-stream):
+     * event:token
+     * data:I'm doing
+     * <p>
+     * event:token
+     * data: well, thank you!
+     *
+     * @param input Validated input containing the user's message prompt
+     * @param convId Conversation ID from cookie (optional, generated if not provided)
+     * @return Stream of {@code token} events, or a final {@code error} event if generation fails
+     *
+     * @apiNote The user message is stored before the model is called; the memory advisor
+     *          aggregates the streamed chunks and stores the assembled assistant message once
+     *          the stream completes. A stream abandoned by the client stores no answer.
+     *          The conversation's turn is held until the stream terminates, so the next turn
+     *          sees the stored answer.
+     */
+    @PostMapping(value = "/api/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<Flux<ServerSentEvent<String>>> stream(@RequestBody @Valid Input input,
+                                                         @CookieValue(name = "X-CONV-ID", required = false) String convId) {
+
+        String conversationId = convId == null ? UUID.randomUUID().toString() : convId;
+
+        var turn = turns.enter(conversationId);
+        Flux<ServerSentEvent<String>> tokens;
+        try {
+            tokens = this.chatClient.prompt()
+                    .user(input.prompt())
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .stream().content()
+                    .map(token -> ServerSentEvent.builder(token).event("token").build())
+                    .onErrorResume(ex -> Flux.just(ServerSentEvent.builder("Error generating the answer.")
+                            .event("error").build()))
+                    .doFinally(signal -> turn.close());
+        }
+        catch (RuntimeException ex) {
+            turn.close();
+            throw ex;
+        }
+
+        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, conversationCookie(conversationId).toString())
+                .body(tokens);
+    }
+
+    /**
+     * Rejects a turn whose conversation already has too many turns queued.
+     *
+     * @param ex Raised by the turn queue
+     * @return 429 Too Many Requests, so the client can retry once the current answer is done
+     */
+    @ExceptionHandler(ConversationBusyException.class)
+    ResponseEntity<Void> conversationBusy(ConversationBusyException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    /**
+     * Creates the session cookie that keeps the conversation ID across requests.
+     *
+     * @param conversationId Conversation to continue on the next request
+     * @return Cookie available across the application, expiring with the stored conversation
+     */
+    private ResponseCookie conversationCookie(String conversationId) {
+        return ResponseCookie.from("X-CONV-ID", conversationId)
+                .path("/")                      // Available across entire application
+                .maxAge(retention.ttl())        // Expires with the stored conversation
+                .build();
     }
 
 
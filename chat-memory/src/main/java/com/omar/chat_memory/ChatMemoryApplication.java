@@ -1,8 +1,19 @@
 package com.omar.chat_memory;
 
+import com.omar.chat_memory.memory.ChatMemoryCacheProperties;
+import com.omar.chat_memory.memory.ChatMemoryRetentionProperties;
+import com.omar.chat_memory.memory.ChatMemoryWindowProperties;
+import com.omar.chat_memory.memory.ConversationTurnProperties;
+import com.omar.chat_memory.memory.LongTermMemoryProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
+@EnableConfigurationProperties({ChatMemoryCacheProperties.class, ChatMemoryWindowProperties.class,
+		ChatMemoryRetentionProperties.class, ConversationTurnProperties.class,
+		LongTermMemoryProperties.class})
 @SpringBootApplication
 public class ChatMemoryApplication {
 
@@ -0,0 +1,440 @@
+package com.omar.chat_memory.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 💾 Cached Chat Memory Repository
+ * <p>
+ * Caching decorator for a slow {@link VersionedChatMemoryRepository} (typically JDBC).
+ * <p>
+ * Reads are served from an in-memory copy of each conversation, loaded from the delegate on
+ * first access together with its version. How writes reach the delegate depends on
+ * {@code chat-memory.cache.coherence}:
+ * - Off (one instance, or sticky sessions): write-behind. Writes replace the cached copy and
+ *   mark the conversation dirty; a single background thread flushes dirty conversations in
+ *   batches, one transaction per batch, so a chat turn costs no database round trip once its
+ *   conversation is hot. A crash loses at most one flush interval of turns.
+ * - On (several instances without sticky sessions): write-through. {@code saveAll} returns
+ *   once the conversation is committed, so no instance sits on unflushed turns that another
+ *   instance cannot see.
+ * <p>
+ * Either way every write is conditional on the version the cached copy was read at. If another
+ * writer got there first, the conversation is reloaded: when the local change only appended
+ * messages they are re-applied on top of the fresh history (optimistic append), otherwise the
+ * local rewrite is dropped in favour of the stored history and a write-through caller gets an
+ * {@link OptimisticLockingFailureException}. A stale copy can therefore never overwrite turns
+ * written elsewhere.
+ * <p>
+ * Written and deleted conversations are reported to an {@link Invalidations} hook inside the
+ * write transaction, which {@link ChatMemoryCacheCoherence} uses to invalidate the caches of
+ * other instances. Dirty conversations are never evicted before they are flushed, and
+ * everything still dirty is flushed when the application context shuts down.
+ */
+public class CachedChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CachedChatMemoryRepository.class);
+
+    // reload-and-retry rounds before a write gives up on a heavily contended conversation
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final VersionedChatMemoryRepository delegate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatMemoryCacheProperties properties;
+    private final Invalidations invalidations;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    public CachedChatMemoryRepository(VersionedChatMemoryRepository delegate, TransactionTemplate transactionTemplate,
+                                      ChatMemoryCacheProperties properties) {
+        this(delegate, transactionTemplate, properties, Invalidations.NONE);
+    }
+
+    public CachedChatMemoryRepository(VersionedChatMemoryRepository delegate, TransactionTemplate transactionTemplate,
+                                      ChatMemoryCacheProperties properties, Invalidations invalidations) {
+        this.delegate = delegate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.invalidations = invalidations;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chat-memory-flusher").daemon().factory());
+        long interval = properties.flushInterval().toMillis();
+        this.flusher.scheduleWithFixedDelay(this::flushAndEvict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        Set<String> ids = new LinkedHashSet<>(delegate.findConversationIds());
+        ids.addAll(dirty);
+        return List.copyOf(ids);
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        Entry entry = entry(conversationId);
+        entry.touch();
+        return entry.messages;
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        List<Message> snapshot = List.copyOf(messages);
+        if (properties.coherence()) {
+            writeThrough(conversationId, snapshot);
+            return;
+        }
+        Entry saved;
+        do {
+            // load outside the map lock; retried if the entry was evicted in between
+            Entry loaded = entries.containsKey(conversationId) ? null : load(conversationId);
+            // The dirty mark is set under the same per-key guard as the entry, so a delete or
+            // a flush never sees one without the other.
+            saved = entries.compute(conversationId, (id, entry) -> {
+                Entry current = entry != null ? entry : loaded;
+                if (current != null) {
+                    current.messages = snapshot;
+                    current.touch();
+                    dirty.add(id);
+                }
+                return current;
+            });
+        }
+        while (saved == null);
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        flushLock.lock();
+        try {
+            entries.compute(conversationId, (id, entry) -> {
+                dirty.remove(id);
+                return null;
+            });
+            transactionTemplate.executeWithoutResult(status -> {
+                delegate.deleteByConversationId(conversationId);
+                invalidations.changed(List.of(conversationId));
+            });
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every dirty conversation to the delegate now.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<String> batch = new ArrayList<>(properties.flushBatchSize());
+            for (String conversationId : dirty) {
+                batch.add(conversationId);
+                if (batch.size() == properties.flushBatchSize()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the cached copy of a conversation changed by another instance, so the next read
+     * reloads it. A copy with unflushed writes (write-behind only) is kept: its flush is
+     * version-checked and re-applies those writes on top of the other instance's change.
+     *
+     * @param conversationId Conversation changed elsewhere
+     */
+    public void invalidate(String conversationId) {
+        entries.computeIfPresent(conversationId, (id, entry) -> dirty.contains(id) ? entry : null);
+    }
+
+    /**
+     * Drops every cached conversation without unflushed writes.
+     *
+     * @return Number of conversations dropped
+     */
+    public int invalidateAll() {
+        int before = entries.size();
+        entries.keySet().forEach(this::invalidate);
+        return before - entries.size();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    private Entry entry(String conversationId) {
+        Entry entry = entries.get(conversationId);
+        if (entry == null) {
+            // Load outside the map lock; if a concurrent write got there first, its copy wins.
+            Entry loaded = load(conversationId);
+            entry = entries.putIfAbsent(conversationId, loaded);
+            if (entry == null) {
+                entry = loaded;
+            }
+        }
+        return entry;
+    }
+
+    private Entry load(String conversationId) {
+        VersionedChatMemoryRepository.Versioned stored = delegate.findVersionedByConversationId(conversationId);
+        return new Entry(List.copyOf(stored.messages()), stored.version());
+    }
+
+    private void writeThrough(String conversationId, List<Message> messages) {
+        Entry entry = entry(conversationId);
+        boolean written;
+        entry.lock.lock();
+        try {
+            entry.messages = messages;
+            entry.touch();
+            transactionTemplate.executeWithoutResult(status -> {
+                write(conversationId, entry);
+                invalidations.changed(List.of(conversationId));
+            });
+            written = commit(conversationId, entry);
+        }
+        catch (RuntimeException ex) {
+            // the copy may no longer match what is stored, start over from the database
+            entries.remove(conversationId, entry);
+            throw ex;
+        }
+        finally {
+            entry.lock.unlock();
+        }
+        if (!written) {
+            throw new OptimisticLockingFailureException(
+                    "Conversation " + conversationId + " was changed by another writer, reloaded it");
+        }
+    }
+
+    // Called with flushLock held, so no delete can run between picking the entries and
+    // writing them.
+    private void writeBatch(List<String> conversationIds) {
+        // Clear each mark together with picking the entry: a saveAll racing with the write
+        // re-marks the conversation and it is written again by the next flush.
+        Map<String, Entry> batch = new LinkedHashMap<>();
+        for (String conversationId : conversationIds) {
+            entries.computeIfPresent(conversationId, (id, entry) -> {
+                if (dirty.remove(id)) {
+                    batch.put(id, entry);
+                }
+                return entry;
+            });
+        }
+        batch.values().forEach(entry -> entry.lock.lock());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                batch.forEach(this::write);
+                invalidations.changed(List.copyOf(batch.keySet()));
+            });
+            batch.forEach((conversationId, entry) -> {
+                if (!commit(conversationId, entry)) {
+                    log.warn("Dropped a local rewrite of conversation {} that another writer changed first",
+                            conversationId);
+                }
+            });
+        }
+        catch (RuntimeException ex) {
+            log.warn("Flushing {} conversations failed, retrying on next flush", batch.size(), ex);
+            batch.keySet().forEach(conversationId -> entries.computeIfPresent(conversationId, (id, entry) -> {
+                dirty.add(id);
+                return entry;
+            }));
+        }
+        finally {
+            batch.values().forEach(entry -> entry.lock.unlock());
+        }
+    }
+
+    /**
+     * Writes the entry conditionally on its version, inside the caller's transaction. The
+     * outcome is kept pending on the entry until the transaction has committed.
+     */
+    private void write(String conversationId, Entry entry) {
+        List<Message> local = entry.messages;
+        List<Message> base = entry.stored;
+        List<Message> messages = local;
+        long version = entry.version;
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (delegate.saveAll(conversationId, messages, version)) {
+                entry.pending(local, messages, version + 1, true);
+                return;
+            }
+            VersionedChatMemoryRepository.Versioned fresh = delegate.findVersionedByConversationId(conversationId);
+            List<Message> current = List.copyOf(fresh.messages());
+            if (!startsWith(messages, base)) {
+                entry.pending(local, current, fresh.version(), false);
+                return;
+            }
+            List<Message> appended = new ArrayList<>(current);
+            appended.addAll(messages.subList(base.size(), messages.size()));
+            messages = List.copyOf(appended);
+            base = current;
+            version = fresh.version();
+        }
+        throw new OptimisticLockingFailureException("Conversation " + conversationId + " kept changing during "
+                + MAX_WRITE_ATTEMPTS + " write attempts");
+    }
+
+    // Under the per-key guard, like saveAll, so messages written meanwhile are not overwritten.
+    private boolean commit(String conversationId, Entry entry) {
+        boolean[] written = new boolean[1];
+        entries.compute(conversationId, (id, current) -> {
+            written[0] = entry.commit();
+            return current;
+        });
+        return written[0];
+    }
+
+    private static boolean startsWith(List<Message> messages, List<Message> prefix) {
+        return messages.size() >= prefix.size() && messages.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private void flushAndEvict() {
+        try {
+            flush();
+            evict();
+        }
+        catch (RuntimeException ex) {
+            log.warn("Chat memory flush failed", ex);
+        }
+    }
+
+    private void evict() {
+        long expiredBefore = System.nanoTime() - properties.ttl().toNanos();
+        entries.forEach((conversationId, entry) -> {
+            if (entry.lastAccess < expiredBefore) {
+                evict(conversationId, entry.lastAccess);
+            }
+        });
+
+        int excess = entries.size() - properties.maxConversations();
+        if (excess > 0) {
+            entries.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().lastAccess))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(excess)
+                    .toList()
+                    .forEach(e -> evict(e.getKey(), e.getValue()));
+        }
+    }
+
+    // Removes the entry only if it is clean and untouched since lastAccess was read; saveAll
+    // touches the entry inside the same per-key compute, so a concurrent write is never dropped.
+    private void evict(String conversationId, long lastAccess) {
+        entries.computeIfPresent(conversationId, (id, entry) ->
+                dirty.contains(id) || entry.lastAccess != lastAccess ? entry : null);
+    }
+
+    /**
+     * Stops the background flusher and writes everything still dirty.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(properties.flushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        flush();
+        log.info("Chat memory flushed on shutdown, {} conversations left dirty", dirty.size());
+    }
+
+    private static final class Entry {
+
+        // held while the conversation is written; a write-behind saveAll may still replace
+        // messages meanwhile
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile List<Message> messages;
+        private volatile long lastAccess = System.nanoTime();
+
+        // history and version as last committed to the delegate, guarded by lock
+        private List<Message> stored;
+        private long version;
+
+        // outcome of the write in progress, applied by commit() once its transaction committed
+        private List<Message> pendingFrom;
+        private List<Message> pendingStored;
+        private long pendingVersion;
+        private boolean pendingWritten;
+
+        private Entry(List<Message> messages, long version) {
+            this.messages = messages;
+            this.stored = messages;
+            this.version = version;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+
+        private void pending(List<Message> from, List<Message> stored, long version, boolean written) {
+            this.pendingFrom = from;
+            this.pendingStored = stored;
+            this.pendingVersion = version;
+            this.pendingWritten = written;
+        }
+
+        /**
+         * @return Whether the local messages were written (false if they were replaced by the stored history)
+         */
+        private boolean commit() {
+            List<Message> current = messages;
+            if (current == pendingFrom) {
+                messages = pendingStored;
+            }
+            else if (startsWith(current, pendingFrom)) {
+                // appended by a write-behind saveAll during the flush: keep those on top
+                List<Message> rebased = new ArrayList<>(pendingStored);
+                rebased.addAll(current.subList(pendingFrom.size(), current.size()));
+                messages = List.copyOf(rebased);
+            }
+            stored = pendingStored;
+            version = pendingVersion;
+            pendingFrom = null;
+            pendingStored = null;
+            return pendingWritten;
+        }
+    }
+
+    /**
+     * Hook told which conversations were written or deleted, called inside the write transaction.
+     */
+    @FunctionalInterface
+    public interface Invalidations {
+
+        Invalidations NONE = conversationIds -> {
+        };
+
+        void changed(List<String> conversationIds);
+    }
+}
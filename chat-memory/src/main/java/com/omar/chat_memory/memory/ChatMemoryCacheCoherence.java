@@ -0,0 +1,152 @@
+package com.omar.chat_memory.memory;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 📣 Chat Memory Cache Coherence
+ * <p>
+ * Keeps the {@link CachedChatMemoryRepository} of several application instances coherent
+ * through Postgres {@code LISTEN/NOTIFY}, so conversations can be cached on every node without
+ * sticky sessions.
+ * <p>
+ * How it works:
+ * - With coherence on, the cache writes through, so a node's writes are committed before its
+ *   request finishes; it then sends one notification per conversation on the configured
+ *   channel, inside the same transaction, so other nodes hear about a change only once it is
+ *   committed
+ * - Every node keeps one connection listening on that channel and drops its cached copy of
+ *   each conversation named by another node; the next read reloads it from the database
+ * - After (re)connecting the listener, notifications may have been missed, so every clean
+ *   cached conversation is dropped
+ * <p>
+ * Notifications only keep reads fresh. A node that writes before a notification arrives is
+ * caught by the version check of the write itself (see {@link CachedChatMemoryRepository}).
+ * <p>
+ * The listening connection is held for the lifetime of the application, so it is opened from
+ * its own non-pooled {@link DataSource} rather than taken out of the application's pool.
+ */
+public class ChatMemoryCacheCoherence implements CachedChatMemoryRepository.Invalidations, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryCacheCoherence.class);
+
+    private static final long POLL_MILLIS = 1_000;
+    private static final long RECONNECT_MILLIS = 5_000;
+
+    private final DataSource listenerDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatMemoryCacheProperties properties;
+
+    // payload prefix that lets a node ignore its own notifications
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    /**
+     * @param listenerDataSource Non-pooled source of the listening connection
+     * @param jdbcTemplate       Sends notifications through the application's pool and transactions
+     * @param properties         Coherence switch and channel
+     */
+    public ChatMemoryCacheCoherence(DataSource listenerDataSource, JdbcTemplate jdbcTemplate,
+                                    ChatMemoryCacheProperties properties) {
+        this.listenerDataSource = listenerDataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * Starts listening for invalidations from other nodes.
+     *
+     * @param cache Cache whose entries are dropped when another node changes them
+     */
+    public synchronized void listen(CachedChatMemoryRepository cache) {
+        if (!properties.coherence() || running) {
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform().name("chat-memory-listener").daemon().start(() -> listenLoop(cache));
+    }
+
+    /**
+     * Notifies the other nodes, in the caller's transaction if there is one.
+     */
+    @Override
+    public void changed(List<String> conversationIds) {
+        if (!properties.coherence() || conversationIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT pg_notify(?, ? || ':' || id) FROM unnest(?) AS id")) {
+                statement.setString(1, properties.coherenceChannel());
+                statement.setString(2, nodeId);
+                statement.setArray(3, connection.createArrayOf("text", conversationIds.toArray()));
+                statement.executeQuery().close();
+            }
+            return null;
+        });
+    }
+
+    private void listenLoop(CachedChatMemoryRepository cache) {
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.coherenceChannel());
+                }
+                int dropped = cache.invalidateAll();
+                log.info("Listening for chat memory invalidations on '{}', dropped {} cached conversations",
+                        properties.coherenceChannel(), dropped);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        String payload = notification.getParameter();
+                        int separator = payload.indexOf(':');
+                        if (separator > 0 && !payload.startsWith(nodeId)) {
+                            cache.invalidate(payload.substring(separator + 1));
+                        }
+                    }
+                }
+            }
+            catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Chat memory invalidation listener failed, reconnecting in {} ms", RECONNECT_MILLIS, ex);
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                }
+                catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(POLL_MILLIS * 2);
+        }
+    }
+}
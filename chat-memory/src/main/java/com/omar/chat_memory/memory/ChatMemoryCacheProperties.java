@@ -0,0 +1,38 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * ⚙️ Chat Memory Cache Properties
+ * <p>
+ * Bounds and timing of the in-memory conversation cache in front of the JDBC repository.
+ * <p>
+ * Usage in application.yaml:
+ *   chat-memory:
+ *     cache:
+ *       max-conversations: 10000
+ *       ttl: 30m
+ *       flush-interval: 1s
+ *       flush-batch-size: 100
+ *       coherence: true
+ *       coherence-channel: chat_memory_cache
+ *
+ * @param maxConversations Conversations kept in memory before the least recently used clean ones are evicted
+ * @param ttl              Idle time after which a clean conversation is evicted
+ * @param flushInterval    Delay between write-behind flushes to the database (coherence off)
+ * @param flushBatchSize   Conversations written per database transaction
+ * @param coherence        Whether several instances share conversations: writes go through to the database and
+ *                         instances invalidate each other's caches through Postgres LISTEN/NOTIFY
+ * @param coherenceChannel Postgres notification channel shared by all instances
+ */
+@ConfigurationProperties("chat-memory.cache")
+public record ChatMemoryCacheProperties(@DefaultValue("10000") int maxConversations,
+                                        @DefaultValue("30m") Duration ttl,
+                                        @DefaultValue("1s") Duration flushInterval,
+                                        @DefaultValue("100") int flushBatchSize,
+                                        @DefaultValue("true") boolean coherence,
+                                        @DefaultValue("chat_memory_cache") String coherenceChannel) {
+}
@@ -0,0 +1,162 @@
+package com.omar.chat_memory.memory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 🧠 Chat Memory Configuration
+ * <p>
+ * Wires the chat memory and the storage stack behind it.
+ * <p>
+ * Storage is the daily-partitioned Postgres table ({@link PartitionedJdbcChatMemoryRepository})
+ * instead of the starter's plain table, whose schema initialization is turned off. The cached
+ * decorator is marked {@code @Primary} so the chat memory (and anything else asking for a
+ * {@code ChatMemoryRepository}) goes through the cache. The token-window memory replaces the
+ * auto-configured message-count window, and past turns are archived in a pgvector table for
+ * selective recall by the {@link LongTermMemoryAdvisor}.
+ */
+@Configuration
+public class ChatMemoryConfiguration {
+
+    /**
+     * @param jdbcTemplate       JDBC access to the chat memory table
+     * @param transactionManager Used for the schema conversion
+     * @param retention          Conversation TTL and maintenance schedule
+     * @param meterRegistry      Registry for the table size metrics
+     * @return Partition manager, table created/converted on startup
+     */
+    @Bean(initMethod = "initialize")
+    ChatMemoryPartitionManager chatMemoryPartitionManager(JdbcTemplate jdbcTemplate,
+                                                          PlatformTransactionManager transactionManager,
+                                                          ChatMemoryRetentionProperties retention,
+                                                          MeterRegistry meterRegistry) {
+        return new ChatMemoryPartitionManager(jdbcTemplate, new TransactionTemplate(transactionManager),
+                retention, meterRegistry);
+    }
+
+    /**
+     * @param jdbcTemplate       JDBC access to the chat memory table
+     * @param transactionManager Makes each delete + re-insert atomic
+     * @param retention          Conversation TTL bounding every query
+     * @param partitionManager   Declared so the table exists before the repository is used
+     * @return Durable repository over the partitioned table
+     */
+    @Bean
+    PartitionedJdbcChatMemoryRepository partitionedJdbcChatMemoryRepository(JdbcTemplate jdbcTemplate,
+                                                                            PlatformTransactionManager transactionManager,
+                                                                            ChatMemoryRetentionProperties retention,
+                                                                            ChatMemoryPartitionManager partitionManager) {
+        return new PartitionedJdbcChatMemoryRepository(jdbcTemplate, new TransactionTemplate(transactionManager),
+                retention);
+    }
+
+    /**
+     * @param connectionDetails Database the listening connection is opened to, outside the pool
+     * @param jdbcTemplate      Used to send notifications in the write transaction
+     * @param properties        Coherence switch and channel
+     * @return Cross-instance invalidation over LISTEN/NOTIFY
+     */
+    @Bean
+    ChatMemoryCacheCoherence chatMemoryCacheCoherence(JdbcConnectionDetails connectionDetails,
+                                                      JdbcTemplate jdbcTemplate,
+                                                      ChatMemoryCacheProperties properties) {
+        var listenerDataSource = new DriverManagerDataSource(connectionDetails.getJdbcUrl(),
+                connectionDetails.getUsername(), connectionDetails.getPassword());
+        return new ChatMemoryCacheCoherence(listenerDataSource, jdbcTemplate, properties);
+    }
+
+    /**
+     * @param jdbcRepository     Durable, versioned repository behind the cache
+     * @param transactionManager Used to group each write or flush batch into one transaction
+     * @param properties         Cache bounds, flush timing and coherence switch
+     * @param coherence          Publishes and receives invalidations between instances
+     * @return Cached repository (write-through with coherence, write-behind otherwise), flushed on shutdown
+     */
+    @Bean
+    @Primary
+    CachedChatMemoryRepository cachedChatMemoryRepository(PartitionedJdbcChatMemoryRepository jdbcRepository,
+                                                          PlatformTransactionManager transactionManager,
+                                                          ChatMemoryCacheProperties properties,
+                                                          ChatMemoryCacheCoherence coherence) {
+        var repository = new CachedChatMemoryRepository(jdbcRepository, new TransactionTemplate(transactionManager),
+                properties, coherence);
+        coherence.listen(repository);
+        return repository;
+    }
+
+    /**
+     * @param repository Primary (cached) chat memory repository
+     * @param builder    ChatClient builder for the summarizer
+     * @param properties Token budget and summarization settings
+     * @return Token-budget memory with rolling summarization
+     */
+    @Bean
+    TokenWindowChatMemory chatMemory(ChatMemoryRepository repository, ChatClient.Builder builder,
+                                     ChatMemoryWindowProperties properties) {
+        return new TokenWindowChatMemory(repository, new JTokkitTokenCountEstimator(),
+                new ConversationSummarizer(builder, properties.summaryMaxWords()), properties);
+    }
+
+    /**
+     * @param properties    Queue limits
+     * @param meterRegistry Registry for the queue depth metrics
+     * @return Per-conversation turn queue used by the chat endpoints
+     */
+    @Bean
+    ConversationTurnQueue conversationTurnQueue(ConversationTurnProperties properties, MeterRegistry meterRegistry) {
+        return new ConversationTurnQueue(properties, meterRegistry);
+    }
+
+    /**
+     * @param jdbcTemplate   JDBC access to the vector table
+     * @param embeddingModel Model embedding archived turns and recall queries
+     * @return Vector store holding the long-term memory, schema created on startup
+     */
+    @Bean
+    PgVectorStore longTermVectorStore(JdbcTemplate jdbcTemplate, EmbeddingModel embeddingModel) {
+        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                .vectorTableName(LongTermChatMemory.TABLE)
+                .distanceType(PgDistanceType.COSINE_DISTANCE)
+                .indexType(PgIndexType.HNSW)
+                .initializeSchema(true)
+                .build();
+    }
+
+    /**
+     * @param longTermVectorStore Vector store holding the archived turns
+     * @param embeddingModel      Model embedding recall queries
+     * @param jdbcTemplate        Used for the scoped recall query and to purge expired turns
+     * @param properties          Recall settings
+     * @param retention           Conversation TTL
+     * @return Long-term memory tier, conversation index created on startup
+     */
+    @Bean(initMethod = "initialize")
+    LongTermChatMemory longTermChatMemory(PgVectorStore longTermVectorStore, EmbeddingModel embeddingModel,
+                                          JdbcTemplate jdbcTemplate, LongTermMemoryProperties properties,
+                                          ChatMemoryRetentionProperties retention) {
+        return new LongTermChatMemory(longTermVectorStore, embeddingModel, jdbcTemplate, properties, retention);
+    }
+
+    /**
+     * @param longTermChatMemory Long-term memory tier
+     * @return Advisor recalling relevant past turns and archiving new ones
+     */
+    @Bean
+    LongTermMemoryAdvisor longTermMemoryAdvisor(LongTermChatMemory longTermChatMemory) {
+        return new LongTermMemoryAdvisor(longTermChatMemory);
+    }
+}
@@ -0,0 +1,202 @@
+package com.omar.chat_memory.memory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 📅 Chat Memory Partition Manager
+ * <p>
+ * Owns the layout of the {@code SPRING_AI_CHAT_MEMORY} table on Postgres: one range partition
+ * per day on {@code "timestamp"}, plus a default partition as a safety net.
+ * <p>
+ * Responsibilities:
+ * - Creates the partitioned table on startup, converting a plain table left by the stock
+ *   JDBC starter (its rows are copied into today's partition)
+ * - Creates partitions ahead of time so inserts never land in the default partition
+ * - Drops whole partitions once every row in them is past the retention TTL, which is far
+ *   cheaper than {@code DELETE} and leaves no bloat behind
+ * - Creates the small per-conversation version table used by
+ *   {@link PartitionedJdbcChatMemoryRepository} and purges versions of expired conversations
+ * - Publishes table size, row estimate and partition count as metrics
+ */
+public class ChatMemoryPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMemoryPartitionManager.class);
+
+    private static final String TABLE = "spring_ai_chat_memory";
+    private static final String VERSION_TABLE = "spring_ai_chat_memory_version";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatMemoryRetentionProperties retention;
+    private final Clock clock;
+
+    private final AtomicLong tableBytes = new AtomicLong();
+    private final AtomicLong estimatedRows = new AtomicLong();
+    private final AtomicLong partitions = new AtomicLong();
+    private final AtomicLong droppedPartitions = new AtomicLong();
+
+    public ChatMemoryPartitionManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                      ChatMemoryRetentionProperties retention, MeterRegistry meterRegistry) {
+        this(jdbcTemplate, transactionTemplate, retention, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    ChatMemoryPartitionManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               ChatMemoryRetentionProperties retention, MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.clock = clock;
+
+        Gauge.builder("chat.memory.table.size", tableBytes, AtomicLong::get)
+                .description("Total size of the chat memory table, its partitions and indexes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chat.memory.table.rows", estimatedRows, AtomicLong::get)
+                .description("Estimated chat memory rows (planner statistics)")
+                .register(meterRegistry);
+        Gauge.builder("chat.memory.partitions", partitions, AtomicLong::get)
+                .description("Daily chat memory partitions currently attached")
+                .register(meterRegistry);
+        Gauge.builder("chat.memory.partitions.dropped", droppedPartitions, AtomicLong::get)
+                .description("Expired partitions dropped since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates (or converts to) the partitioned table and today's partitions.
+     */
+    public void initialize() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS %s (
+                        conversation_id VARCHAR(36) PRIMARY KEY,
+                        version BIGINT NOT NULL,
+                        "timestamp" TIMESTAMP NOT NULL
+                    )
+                    """.formatted(VERSION_TABLE));
+            String kind = jdbcTemplate.query("SELECT relkind::text FROM pg_class WHERE relname = ?",
+                    (rs, i) -> rs.getString(1), TABLE).stream().findFirst().orElse(null);
+            if ("p".equals(kind)) {
+                return;
+            }
+            if ("r".equals(kind)) {
+                log.info("Converting {} to a daily-partitioned table", TABLE);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_unpartitioned");
+                jdbcTemplate.execute("ALTER INDEX IF EXISTS " + TABLE + "_conversation_id_timestamp_idx RENAME TO "
+                        + TABLE + "_unpartitioned_idx");
+            }
+            jdbcTemplate.execute("""
+                    CREATE TABLE %s (
+                        conversation_id VARCHAR(36) NOT NULL,
+                        content TEXT NOT NULL,
+                        type VARCHAR(10) NOT NULL CHECK (type IN ('USER', 'ASSISTANT', 'SYSTEM', 'TOOL')),
+                        "timestamp" TIMESTAMP NOT NULL
+                    ) PARTITION BY RANGE ("timestamp")
+                    """.formatted(TABLE));
+            jdbcTemplate.execute("CREATE INDEX " + TABLE + "_conversation_id_timestamp_idx ON "
+                    + TABLE + " (conversation_id, \"timestamp\")");
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT");
+            createPartitions();
+            if ("r".equals(kind)) {
+                // The stock repository wrote epoch-second values as millis, so original times are
+                // meaningless; keep each conversation's order and stamp it as written now.
+                int copied = jdbcTemplate.update("""
+                        INSERT INTO %1$s (conversation_id, content, type, "timestamp")
+                        SELECT conversation_id, content, type, localtimestamp
+                               + row_number() OVER (PARTITION BY conversation_id ORDER BY "timestamp") * interval '1 microsecond'
+                        FROM %1$s_unpartitioned
+                        """.formatted(TABLE));
+                jdbcTemplate.execute("DROP TABLE " + TABLE + "_unpartitioned");
+                log.info("Moved {} chat memory rows into the partitioned table", copied);
+            }
+        });
+        maintain();
+    }
+
+    /**
+     * Creates upcoming partitions, drops expired ones and refreshes the size metrics.
+     */
+    @Scheduled(initialDelayString = "${chat-memory.retention.purge-interval:15m}",
+            fixedDelayString = "${chat-memory.retention.purge-interval:15m}")
+    public void maintain() {
+        try {
+            createPartitions();
+            purgeExpired();
+            measure();
+        }
+        catch (RuntimeException ex) {
+            log.warn("Chat memory partition maintenance failed", ex);
+        }
+    }
+
+    private void createPartitions() {
+        // rows are always written with the current time, so past days never need a partition;
+        // creating one would only hand purgeExpired an empty table to drop again
+        LocalDate today = LocalDate.now(clock);
+        for (int day = 0; day <= retention.precreateDays(); day++) {
+            LocalDate from = today.plusDays(day);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(partitionName(from), TABLE, from, from.plusDays(1)));
+        }
+    }
+
+    private void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention.ttl());
+        // a partition can go once its upper bound (start of the next day) is before the cutoff
+        LocalDate lastExpiredDay = cutoff.toLocalDate().minusDays(1);
+
+        List<String> attached = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = ? AND c.relname <> ?
+                """, String.class, TABLE, TABLE + "_default");
+        for (String partition : attached) {
+            LocalDate day = LocalDate.parse(partition.substring(partition.length() - 8), SUFFIX);
+            if (!day.isAfter(lastExpiredDay)) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                droppedPartitions.incrementAndGet();
+                log.info("Dropped expired chat memory partition {}", partition);
+            }
+        }
+        int stray = jdbcTemplate.update("DELETE FROM " + TABLE + "_default WHERE \"timestamp\" < ?", cutoff);
+        if (stray > 0) {
+            log.info("Purged {} expired rows from the default chat memory partition", stray);
+        }
+        jdbcTemplate.update("DELETE FROM " + VERSION_TABLE + " WHERE \"timestamp\" < ?", cutoff);
+    }
+
+    private void measure() {
+        jdbcTemplate.query("""
+                SELECT coalesce(sum(pg_total_relation_size(c.oid)), 0),
+                       coalesce(sum(greatest(c.reltuples, 0)), 0)::bigint,
+                       count(*) FILTER (WHERE c.relname <> ?)
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = ?
+                """, rs -> {
+            tableBytes.set(rs.getLong(1));
+            estimatedRows.set(rs.getLong(2));
+            partitions.set(rs.getLong(3));
+        }, TABLE + "_default", TABLE);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return TABLE + "_p" + day.format(SUFFIX);
+    }
+}
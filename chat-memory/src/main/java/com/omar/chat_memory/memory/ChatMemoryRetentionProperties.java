@@ -0,0 +1,28 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * ⚙️ Chat Memory Retention Properties
+ * <p>
+ * Lifetime of conversations and maintenance of the daily partitions that store them.
+ * <p>
+ * Usage in application.yaml:
+ *   chat-memory:
+ *     retention:
+ *       ttl: 1h
+ *       purge-interval: 15m
+ *       precreate-days: 2
+ *
+ * @param ttl           Idle time after which a conversation is expired; also the X-CONV-ID cookie lifetime
+ * @param purgeInterval Delay between partition maintenance runs (create ahead, drop expired, measure)
+ * @param precreateDays Daily partitions created ahead of today
+ */
+@ConfigurationProperties("chat-memory.retention")
+public record ChatMemoryRetentionProperties(@DefaultValue("1h") Duration ttl,
+                                            @DefaultValue("15m") Duration purgeInterval,
+                                            @DefaultValue("2") int precreateDays) {
+}
@@ -0,0 +1,26 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * ⚙️ Chat Memory Window Properties
+ * <p>
+ * Token budget of the memory sent to the model on every turn.
+ * <p>
+ * Usage in application.yaml:
+ *   chat-memory:
+ *     window:
+ *       max-tokens: 3000
+ *       summary-max-words: 250
+ *       summarize: true
+ *
+ * @param maxTokens       Tokens of memory (summary + recent messages) sent per turn
+ * @param summaryMaxWords Length the running summary is asked to stay within
+ * @param summarize       Whether messages falling out of the window are compacted into a summary
+ */
+@ConfigurationProperties("chat-memory.window")
+public record ChatMemoryWindowProperties(@DefaultValue("3000") int maxTokens,
+                                         @DefaultValue("250") int summaryMaxWords,
+                                         @DefaultValue("true") boolean summarize) {
+}
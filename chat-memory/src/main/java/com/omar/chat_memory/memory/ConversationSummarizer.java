@@ -0,0 +1,57 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 📝 Conversation Summarizer
+ * <p>
+ * Folds messages that no longer fit the memory window into a running summary.
+ * Uses its own {@link ChatClient} without memory advisors, so summarizing never reads or
+ * writes conversation memory itself.
+ */
+public class ConversationSummarizer {
+
+    private static final String INSTRUCTIONS = """
+            You maintain the running summary of a conversation between a user and an assistant.
+            Merge the previous summary with the new messages into one updated summary.
+            Keep facts, names, numbers, preferences, decisions and open questions; drop small talk.
+            Write in third person, at most {maxWords} words, plain text only.
+            """;
+
+    private final ChatClient chatClient;
+    private final int maxWords;
+
+    public ConversationSummarizer(ChatClient.Builder builder, int maxWords) {
+        this.chatClient = builder.build();
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * @param previousSummary Current summary text, empty when the conversation has none yet
+     * @param messages        Oldest messages to fold in, in conversation order
+     * @return Updated summary text
+     */
+    public String summarize(String previousSummary, List<Message> messages) {
+        String transcript = messages.stream()
+                .map(m -> m.getMessageType().getValue() + ": " + m.getText())
+                .collect(Collectors.joining("\n"));
+
+        return chatClient.prompt()
+                .system(s -> s.text(INSTRUCTIONS).param("maxWords", maxWords))
+                .user(u -> u.text("""
+                        Previous summary:
+                        {summary}
+
+                        New messages:
+                        {transcript}
+                        """)
+                        .param("summary", previousSummary.isBlank() ? "(none)" : previousSummary)
+                        .param("transcript", transcript))
+                .call()
+                .content();
+    }
+}
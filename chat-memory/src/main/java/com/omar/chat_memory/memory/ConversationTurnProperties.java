@@ -0,0 +1,25 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * ⚙️ Conversation Turn Properties
+ * <p>
+ * Limits of the per-conversation turn queue that keeps chat turns of one conversation in order.
+ * <p>
+ * Usage in application.yaml:
+ *   chat-memory:
+ *     turns:
+ *       max-queued: 2
+ *       wait-timeout: 2m
+ *
+ * @param maxQueued   Turns allowed to wait behind the running one before new turns are rejected
+ * @param waitTimeout Longest a turn waits for the previous turns of its conversation
+ */
+@ConfigurationProperties("chat-memory.turns")
+public record ConversationTurnProperties(@DefaultValue("2") int maxQueued,
+                                         @DefaultValue("2m") Duration waitTimeout) {
+}
@@ -0,0 +1,168 @@
+package com.omar.chat_memory.memory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🚦 Conversation Turn Queue
+ * <p>
+ * Runs the chat turns of one conversation one at a time, in arrival order, while turns of
+ * different conversations run fully in parallel.
+ * <p>
+ * Without it, two requests with the same {@code X-CONV-ID} (a double-clicked send button) both
+ * read the same history, call the model in parallel and append their answers in whatever
+ * order they finish, interleaving or losing turns.
+ * <p>
+ * Ordering is per instance. Without sticky sessions, turns of one conversation can still run
+ * on two instances at once; the versioned writes of the chat memory keep both turns, but not
+ * their order.
+ * <p>
+ * Each busy conversation gets a fair single-permit {@link Semaphore}, created on the first
+ * turn and removed when the last queued turn leaves, so memory stays proportional to the
+ * conversations currently in flight. Waiting parks the thread without pinning, which makes it
+ * cheap on virtual threads, and the permit may be released from another thread, which a
+ * streamed answer needs (it completes on a reactor thread).
+ * <p>
+ * Metrics:
+ * - {@code chat.conversation.turns.waiting}: turns currently waiting behind another turn
+ * - {@code chat.conversation.turns.active}: conversations with a turn in flight
+ * - {@code chat.conversation.turns.depth}: queue depth seen by each arriving turn
+ * - {@code chat.conversation.turns.wait}: time spent waiting for the previous turns
+ * - {@code chat.conversation.turns.rejected}: turns refused because the queue was full or the wait timed out
+ */
+public class ConversationTurnQueue {
+
+    private final ConversationTurnProperties properties;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final DistributionSummary depth;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public ConversationTurnQueue(ConversationTurnProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("chat.conversation.turns.waiting", waiting, AtomicInteger::get)
+                .description("Chat turns waiting behind another turn of the same conversation")
+                .register(meterRegistry);
+        Gauge.builder("chat.conversation.turns.active", slots, Map::size)
+                .description("Conversations with a chat turn in flight")
+                .register(meterRegistry);
+        this.depth = DistributionSummary.builder("chat.conversation.turns.depth")
+                .description("Turns of the same conversation in flight when a turn arrives, including itself")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("chat.conversation.turns.wait")
+                .description("Time a chat turn waited for the previous turns of its conversation")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chat.conversation.turns.rejected")
+                .description("Chat turns refused because their conversation was busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until every earlier turn of the conversation has finished.
+     *
+     * @param conversationId Conversation the turn belongs to
+     * @return Handle to close once the turn (including a streamed answer) is complete
+     * @throws ConversationBusyException if too many turns are already queued or the wait times out
+     */
+    public Turn enter(String conversationId) {
+        AtomicInteger queued = new AtomicInteger();
+        Slot slot = slots.compute(conversationId, (id, current) -> {
+            Slot s = current == null ? new Slot() : current;
+            queued.set(++s.turns);
+            return s;
+        });
+        depth.record(queued.get());
+        if (queued.get() > properties.maxQueued() + 1) {
+            leave(conversationId, slot);
+            rejected.increment();
+            throw new ConversationBusyException(conversationId);
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean acquired = false;
+        try {
+            acquired = slot.permit.tryAcquire(properties.waitTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            leave(conversationId, slot);
+            rejected.increment();
+            throw new ConversationBusyException(conversationId);
+        }
+        return new Turn(conversationId, slot);
+    }
+
+    /**
+     * @return Number of conversations with a turn in flight
+     */
+    public int activeConversations() {
+        return slots.size();
+    }
+
+    private void leave(String conversationId, Slot slot) {
+        slots.computeIfPresent(conversationId, (id, current) -> current == slot && --current.turns == 0 ? null : current);
+    }
+
+    /**
+     * A turn holding its conversation; closing it lets the next queued turn run.
+     * Closing more than once has no effect.
+     */
+    public final class Turn implements AutoCloseable {
+
+        private final String conversationId;
+        private final Slot slot;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Turn(String conversationId, Slot slot) {
+            this.conversationId = conversationId;
+            this.slot = slot;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                slot.permit.release();
+                leave(conversationId, slot);
+            }
+        }
+    }
+
+    /**
+     * Thrown when a conversation already has the maximum number of turns queued, or a turn
+     * waited longer than the configured timeout.
+     */
+    public static class ConversationBusyException extends RuntimeException {
+
+        public ConversationBusyException(String conversationId) {
+            super("Conversation " + conversationId + " is busy with earlier turns");
+        }
+    }
+
+    private static final class Slot {
+
+        final Semaphore permit = new Semaphore(1, true);
+
+        // turns in flight (running + waiting); only changed inside the map's compute functions
+        int turns;
+    }
+}
@@ -0,0 +1,172 @@
+package com.omar.chat_memory.memory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🗄️ Long-Term Chat Memory
+ * <p>
+ * Vector-indexed archive of every completed turn (question + answer) of a conversation.
+ * <p>
+ * The short-term window only keeps the newest messages (plus a summary); this tier lets the
+ * {@link LongTermMemoryAdvisor} pull back the few past turns that matter for the current
+ * question, however long ago they happened, without growing every prompt.
+ * <p>
+ * Each turn is stored as one document in {@link #TABLE}, with the conversation ID in its
+ * metadata. Embedding and indexing run on a virtual thread after the answer has been sent.
+ * Turns are purged once their conversation has expired from the chat memory table.
+ * <p>
+ * Recall does not go through the table's HNSW index: pgvector applies a metadata filter only
+ * after the approximate scan, which returns {@code ef_search} candidates across all
+ * conversations, so with many conversations the current one is often left with few or no
+ * matches. Instead the conversation's turns are selected through a btree index on the
+ * conversation ID and ranked exactly; one conversation holds at most a few hundred turns, so
+ * this is cheap.
+ */
+public class LongTermChatMemory implements DisposableBean {
+
+    static final String TABLE = "chat_memory_vector_store";
+
+    static final String CONVERSATION_ID = "conversation_id";
+    static final String QUESTION = "question";
+    static final String CREATED_AT = "created_at";
+
+    private static final Logger log = LoggerFactory.getLogger(LongTermChatMemory.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final VectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
+    private final JdbcTemplate jdbcTemplate;
+    private final LongTermMemoryProperties properties;
+    private final ChatMemoryRetentionProperties retention;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LongTermChatMemory(VectorStore vectorStore, EmbeddingModel embeddingModel, JdbcTemplate jdbcTemplate,
+                              LongTermMemoryProperties properties, ChatMemoryRetentionProperties retention) {
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.retention = retention;
+    }
+
+    /**
+     * Creates the conversation ID index used by {@link #recall(String, String)}.
+     */
+    public void initialize() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS %1$s_conversation_id_idx ON %1$s ((metadata->>'%2$s'))"
+                .formatted(TABLE, CONVERSATION_ID));
+    }
+
+    /**
+     * Indexes a completed turn in the background.
+     *
+     * @param conversationId Conversation the turn belongs to
+     * @param question       User message
+     * @param answer         Assistant reply
+     */
+    public void remember(String conversationId, String question, String answer) {
+        if (!properties.enabled() || question == null || question.isBlank() || answer == null || answer.isBlank()) {
+            return;
+        }
+        Document turn = new Document("User: " + question + "\nAssistant: " + answer, Map.of(
+                CONVERSATION_ID, conversationId,
+                QUESTION, question,
+                CREATED_AT, System.currentTimeMillis()));
+        executor.execute(() -> {
+            try {
+                vectorStore.add(List.of(turn));
+            }
+            catch (RuntimeException ex) {
+                log.warn("Indexing a turn of conversation {} failed", conversationId, ex);
+            }
+        });
+    }
+
+    /**
+     * @param conversationId Conversation to search
+     * @param query          Current user message
+     * @return Most relevant past turns of that conversation, best first (none when disabled)
+     */
+    public List<Document> recall(String conversationId, String query) {
+        if (!properties.enabled()) {
+            return List.of();
+        }
+        PGvector embedding = new PGvector(embeddingModel.embed(query));
+        // MATERIALIZED keeps the planner from ordering through the HNSW index
+        return jdbcTemplate.query("""
+                WITH turns AS MATERIALIZED (
+                    SELECT id, content, metadata, embedding FROM %s WHERE metadata->>'%s' = ?
+                )
+                SELECT id, content, metadata, embedding <=> ? AS distance FROM turns
+                WHERE (embedding <=> ?) <= ?
+                ORDER BY distance
+                LIMIT ?
+                """.formatted(TABLE, CONVERSATION_ID), (rs, i) -> Document.builder()
+                        .id(rs.getString("id"))
+                        .text(rs.getString("content"))
+                        .metadata(metadata(rs.getString("metadata")))
+                        .score(1 - rs.getDouble("distance"))
+                        .build(),
+                conversationId, embedding, embedding, 1 - properties.similarityThreshold(), properties.topK());
+    }
+
+    /**
+     * Deletes the turns of conversations that are no longer in the chat memory table.
+     */
+    @Scheduled(initialDelayString = "${chat-memory.retention.purge-interval:15m}",
+            fixedDelayString = "${chat-memory.retention.purge-interval:15m}")
+    public void purgeExpired() {
+        try {
+            Instant cutoff = Instant.now().minus(retention.ttl());
+            int purged = jdbcTemplate.update("""
+                    DELETE FROM %s v
+                    WHERE (v.metadata->>'%s')::bigint < ?
+                      AND NOT EXISTS (SELECT 1 FROM spring_ai_chat_memory m
+                                      WHERE m.conversation_id = v.metadata->>'%s' AND m."timestamp" >= ?)
+                    """.formatted(TABLE, CREATED_AT, CONVERSATION_ID), cutoff.toEpochMilli(), Timestamp.from(cutoff));
+            if (purged > 0) {
+                log.info("Purged {} long-term memory turns of expired conversations", purged);
+            }
+        }
+        catch (RuntimeException ex) {
+            log.warn("Long-term memory purge failed", ex);
+        }
+    }
+
+    private static Map<String, Object> metadata(String json) {
+        try {
+            return JSON.readValue(json, new TypeReference<>() {
+            });
+        }
+        catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable long-term memory metadata", ex);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // let turns being indexed finish, they are the only copy in long-term memory
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
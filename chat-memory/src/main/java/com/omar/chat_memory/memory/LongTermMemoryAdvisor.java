@@ -0,0 +1,103 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.document.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 🔎 Long-Term Memory Advisor
+ * <p>
+ * Recalls the past turns of the conversation most relevant to the current question from
+ * {@link LongTermChatMemory} and adds them to the prompt, then archives the completed turn.
+ * <p>
+ * Runs right after {@code MessageChatMemoryAdvisor}, so the prompt already holds the recent
+ * window: turns whose question is still in that window are skipped instead of being sent
+ * twice. Recalled turns go into a system message just before the current user message; they
+ * are never written back to the short-term memory.
+ * <p>
+ * Streamed responses are aggregated and archived once the stream completes.
+ */
+public class LongTermMemoryAdvisor implements BaseAdvisor {
+
+    static final String RECALL_PREFIX = "Relevant earlier parts of this conversation:\n";
+
+    // carries the user message from before() to after(), the response only sees the context
+    private static final String QUESTION_KEY = "long_term_memory_question";
+
+    private final LongTermChatMemory longTermMemory;
+
+    public LongTermMemoryAdvisor(LongTermChatMemory longTermMemory) {
+        this.longTermMemory = longTermMemory;
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest request, AdvisorChain chain) {
+        String conversationId = (String) request.context().get(ChatMemory.CONVERSATION_ID);
+        UserMessage userMessage = request.prompt().getUserMessage();
+        if (conversationId == null || userMessage.getText() == null || userMessage.getText().isBlank()) {
+            return request;
+        }
+        ChatClientRequest tagged = request.mutate().context(QUESTION_KEY, userMessage.getText()).build();
+
+        List<Message> messages = request.prompt().getInstructions();
+        Set<String> inWindow = messages.stream().map(Message::getText).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<String> recalled = longTermMemory.recall(conversationId, userMessage.getText()).stream()
+                .filter(turn -> !inWindow.contains((String) turn.getMetadata().get(LongTermChatMemory.QUESTION)))
+                .map(Document::getText)
+                .toList();
+        if (recalled.isEmpty()) {
+            return tagged;
+        }
+
+        List<Message> augmented = new ArrayList<>(messages);
+        int userIndex = messages.lastIndexOf(userMessage);
+        augmented.add(userIndex < 0 ? augmented.size() : userIndex,
+                new SystemMessage(RECALL_PREFIX + String.join("\n---\n", recalled)));
+        return tagged.mutate().prompt(request.prompt().mutate().messages(augmented).build()).build();
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse response, AdvisorChain chain) {
+        String conversationId = (String) response.context().get(ChatMemory.CONVERSATION_ID);
+        Object question = response.context().get(QUESTION_KEY);
+        if (conversationId != null && question != null && response.chatResponse() != null
+                && response.chatResponse().getResult() != null) {
+            longTermMemory.remember(conversationId, (String) question,
+                    response.chatResponse().getResult().getOutput().getText());
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Mono.just(request)
+                .publishOn(getScheduler())
+                .map(r -> before(r, chain))
+                .flatMapMany(chain::nextStream)
+                .transform(flux -> new ChatClientMessageAggregator().aggregateChatClientResponse(flux,
+                        response -> after(response, chain)));
+    }
+
+    @Override
+    public int getOrder() {
+        return Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1;
+    }
+}
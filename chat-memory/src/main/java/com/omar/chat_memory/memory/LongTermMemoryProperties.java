@@ -0,0 +1,26 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * ⚙️ Long-Term Memory Properties
+ * <p>
+ * Recall settings for the vector-indexed tier of past conversation turns.
+ * <p>
+ * Usage in application.yaml:
+ *   chat-memory:
+ *     long-term:
+ *       enabled: true
+ *       top-k: 3
+ *       similarity-threshold: 0.6
+ *
+ * @param enabled             Whether turns are indexed and recalled at all
+ * @param topK                Most past turns injected into a prompt
+ * @param similarityThreshold Minimum similarity (0-1) for a past turn to be considered relevant
+ */
+@ConfigurationProperties("chat-memory.long-term")
+public record LongTermMemoryProperties(@DefaultValue("true") boolean enabled,
+                                       @DefaultValue("3") int topK,
+                                       @DefaultValue("0.6") double similarityThreshold) {
+}
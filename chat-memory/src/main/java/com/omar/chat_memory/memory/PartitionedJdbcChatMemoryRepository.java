@@ -0,0 +1,170 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 🗂️ Partitioned JDBC Chat Memory Repository
+ * <p>
+ * {@link ChatMemoryRepository} over the daily-partitioned {@code SPRING_AI_CHAT_MEMORY} table
+ * managed by {@link ChatMemoryPartitionManager}, with per-conversation versions kept in
+ * {@code SPRING_AI_CHAT_MEMORY_VERSION} (see {@link VersionedChatMemoryRepository}).
+ * <p>
+ * Differences from the stock {@code JdbcChatMemoryRepository}:
+ * - Rows carry the real write time, so {@code saveAll} (delete + re-insert) moves a whole
+ *   conversation into today's partition and its partition tracks its last activity
+ * - Every query is bounded by the retention cutoff, so Postgres prunes expired partitions
+ *   and reads only touch the last day or two of data
+ * - Expired conversations are invisible even before their partition is dropped
+ * - Every write and delete bumps the conversation's version row, whose lock also serializes
+ *   concurrent writers of one conversation
+ */
+public class PartitionedJdbcChatMemoryRepository implements VersionedChatMemoryRepository {
+
+    private static final RowMapper<Message> MESSAGE_ROW_MAPPER = (rs, i) -> {
+        String content = rs.getString(1);
+        return switch (MessageType.valueOf(rs.getString(2))) {
+            case USER -> new UserMessage(content);
+            case ASSISTANT -> new AssistantMessage(content);
+            case SYSTEM -> new SystemMessage(content);
+            case TOOL -> ToolResponseMessage.builder().responses(List.of()).build();
+        };
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatMemoryRetentionProperties retention;
+
+    public PartitionedJdbcChatMemoryRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                               ChatMemoryRetentionProperties retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT conversation_id FROM SPRING_AI_CHAT_MEMORY WHERE "timestamp" >= ?
+                """, String.class, cutoff());
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return jdbcTemplate.query("""
+                SELECT content, type FROM SPRING_AI_CHAT_MEMORY
+                WHERE conversation_id = ? AND "timestamp" >= ?
+                ORDER BY "timestamp"
+                """, MESSAGE_ROW_MAPPER, conversationId, cutoff());
+    }
+
+    @Override
+    public Versioned findVersionedByConversationId(String conversationId) {
+        // Version first: if a write commits in between, the messages are newer than the
+        // version, and the next conditional write fails and reloads instead of overwriting it.
+        long version = jdbcTemplate.query("""
+                SELECT version FROM SPRING_AI_CHAT_MEMORY_VERSION WHERE conversation_id = ?
+                """, (rs, i) -> rs.getLong(1), conversationId).stream().findFirst().orElse(0L);
+        return new Versioned(findByConversationId(conversationId), version);
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bumpVersion(conversationId);
+            replace(conversationId, messages);
+        });
+    }
+
+    @Override
+    public boolean saveAll(String conversationId, List<Message> messages, long expectedVersion) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            // Only a writer that saw no version row may create one. A row that went missing since
+            // (purged with the expired conversation) is a conflict too, so a stale copy reloads
+            // instead of writing the expired history back.
+            int updated = expectedVersion == 0
+                    ? jdbcTemplate.update("""
+                            INSERT INTO SPRING_AI_CHAT_MEMORY_VERSION (conversation_id, version, "timestamp")
+                            VALUES (?, 1, localtimestamp)
+                            ON CONFLICT (conversation_id) DO NOTHING
+                            """, conversationId)
+                    : jdbcTemplate.update("""
+                            UPDATE SPRING_AI_CHAT_MEMORY_VERSION SET version = ?, "timestamp" = localtimestamp
+                            WHERE conversation_id = ? AND version = ?
+                            """, expectedVersion + 1, conversationId, expectedVersion);
+            if (updated == 0) {
+                return false;
+            }
+            replace(conversationId, messages);
+            return true;
+        }));
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // keep the version row (bumped) so a stale copy elsewhere cannot write the conversation back
+            bumpVersion(conversationId);
+            delete(conversationId);
+        });
+    }
+
+    private void bumpVersion(String conversationId) {
+        jdbcTemplate.update("""
+                INSERT INTO SPRING_AI_CHAT_MEMORY_VERSION AS v (conversation_id, version, "timestamp")
+                VALUES (?, 1, localtimestamp)
+                ON CONFLICT (conversation_id) DO UPDATE
+                SET version = v.version + 1, "timestamp" = excluded."timestamp"
+                """, conversationId);
+    }
+
+    private void replace(String conversationId, List<Message> messages) {
+        Instant now = Instant.now();
+        delete(conversationId);
+        // one microsecond apart (Postgres timestamp resolution) to keep insertion order
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO SPRING_AI_CHAT_MEMORY (conversation_id, content, type, "timestamp")
+                VALUES (?, ?, ?, ?)
+                """, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Message message = messages.get(i);
+                ps.setString(1, conversationId);
+                ps.setString(2, message.getText());
+                ps.setString(3, message.getMessageType().name());
+                ps.setTimestamp(4, Timestamp.from(now.plusNanos(1_000L * i)));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return messages.size();
+            }
+        });
+    }
+
+    private void delete(String conversationId) {
+        jdbcTemplate.update("""
+                DELETE FROM SPRING_AI_CHAT_MEMORY WHERE conversation_id = ? AND "timestamp" >= ?
+                """, conversationId, cutoff());
+    }
+
+    private Timestamp cutoff() {
+        return Timestamp.from(Instant.now().minus(retention.ttl()));
+    }
+}
@@ -0,0 +1,233 @@
+package com.omar.chat_memory.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 🪟 Token Window Chat Memory
+ * <p>
+ * {@link ChatMemory} that bounds what is sent to the model by tokens instead of message count.
+ * <p>
+ * {@link #get(String)} returns the running summary (if any) followed by the newest messages
+ * that fit in the configured token budget. When stored messages exceed the budget, the ones
+ * that fell out of the window are folded into the summary on a virtual thread, off the
+ * request path; until that finishes they are simply left out of the prompt, so the budget
+ * holds at every turn. The summary itself may use at most half of the budget and is cut
+ * at a word boundary beyond that, so recent messages always keep room.
+ * <p>
+ * Storage layout in the repository: an optional {@link SystemMessage} starting with
+ * {@link #SUMMARY_PREFIX} first, then the not-yet-summarized messages in order.
+ */
+public class TokenWindowChatMemory implements ChatMemory, DisposableBean {
+
+    static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+    // role/formatting overhead the chat APIs add around every message
+    private static final int TOKENS_PER_MESSAGE = 4;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Logger log = LoggerFactory.getLogger(TokenWindowChatMemory.class);
+
+    private final ChatMemoryRepository repository;
+    private final TokenCountEstimator tokenCountEstimator;
+    private final ConversationSummarizer summarizer;
+    private final ChatMemoryWindowProperties properties;
+
+    // ReentrantLock rather than synchronized: the guarded sections do repository I/O, which
+    // would pin the carrier of a virtual thread inside a monitor
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final Set<String> compacting = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public TokenWindowChatMemory(ChatMemoryRepository repository, TokenCountEstimator tokenCountEstimator,
+                                 ConversationSummarizer summarizer, ChatMemoryWindowProperties properties) {
+        this.repository = repository;
+        this.tokenCountEstimator = tokenCountEstimator;
+        this.summarizer = summarizer;
+        this.properties = properties;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Stored stored;
+        ReentrantLock lock = lock(conversationId);
+        lock.lock();
+        try {
+            List<Message> all = new ArrayList<>(repository.findByConversationId(conversationId));
+            all.addAll(messages);
+            repository.saveAll(conversationId, all);
+            stored = Stored.of(all);
+        }
+        finally {
+            lock.unlock();
+        }
+        if (properties.summarize()) {
+            List<Message> overflow = stored.messages.subList(0, stored.messages.size() - window(stored).size());
+            if (!overflow.isEmpty() && compacting.add(conversationId)) {
+                executor.execute(() -> compact(conversationId, stored.summaryText(), List.copyOf(overflow)));
+            }
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        Stored stored = Stored.of(repository.findByConversationId(conversationId));
+        List<Message> window = window(stored);
+        if (stored.summary == null) {
+            return window;
+        }
+        List<Message> result = new ArrayList<>(window.size() + 1);
+        result.add(new SystemMessage(SUMMARY_PREFIX + capSummary(stored.summaryText())));
+        result.addAll(window);
+        return result;
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        ReentrantLock lock = lock(conversationId);
+        lock.lock();
+        try {
+            repository.deleteByConversationId(conversationId);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int tokens(Message message) {
+        return tokens(Objects.requireNonNullElse(message.getText(), ""));
+    }
+
+    /**
+     * Newest messages that fit in the budget left after the summary, oldest first.
+     */
+    private List<Message> window(Stored stored) {
+        int budget = properties.maxTokens()
+                - (stored.summary == null ? 0 : tokens(SUMMARY_PREFIX + capSummary(stored.summaryText())));
+        int start = stored.messages.size();
+        while (start > 0) {
+            int cost = tokens(stored.messages.get(start - 1));
+            if (cost > budget) {
+                break;
+            }
+            budget -= cost;
+            start--;
+        }
+        return stored.messages.subList(start, stored.messages.size());
+    }
+
+    private void compact(String conversationId, String previousSummary, List<Message> overflow) {
+        try {
+            // the model does not always respect the requested length
+            String summary = capSummary(summarizer.summarize(previousSummary, overflow));
+            ReentrantLock lock = lock(conversationId);
+            lock.lock();
+            try {
+                Stored current = Stored.of(repository.findByConversationId(conversationId));
+                // Only replace the exact messages that were summarized; if the conversation was
+                // cleared or rewritten meanwhile, drop this summary.
+                if (!current.startsWith(overflow)) {
+                    return;
+                }
+                List<Message> compacted = new ArrayList<>();
+                compacted.add(new SystemMessage(SUMMARY_PREFIX + summary));
+                compacted.addAll(current.messages.subList(overflow.size(), current.messages.size()));
+                repository.saveAll(conversationId, compacted);
+            }
+            finally {
+                lock.unlock();
+            }
+            log.debug("Compacted {} messages of conversation {} into the summary", overflow.size(), conversationId);
+        }
+        catch (RuntimeException ex) {
+            log.warn("Summarizing conversation {} failed, will retry on next turn", conversationId, ex);
+        }
+        finally {
+            compacting.remove(conversationId);
+        }
+    }
+
+    private int tokens(String text) {
+        return TOKENS_PER_MESSAGE + tokenCountEstimator.estimate(text);
+    }
+
+    /**
+     * Longest word-boundary prefix of the summary that fits in half of the token budget.
+     */
+    private String capSummary(String summary) {
+        int budget = properties.maxTokens() / 2;
+        if (tokens(SUMMARY_PREFIX + summary) <= budget) {
+            return summary;
+        }
+        String[] words = summary.split("\\s+");
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (tokens(SUMMARY_PREFIX + String.join(" ", Arrays.copyOf(words, mid)) + " …") <= budget) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return String.join(" ", Arrays.copyOf(words, low)) + " …";
+    }
+
+    private ReentrantLock lock(String conversationId) {
+        return locks[Math.floorMod(conversationId.hashCode(), LOCK_STRIPES)];
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private record Stored(SystemMessage summary, List<Message> messages) {
+
+        static Stored of(List<Message> all) {
+            if (!all.isEmpty() && all.get(0) instanceof SystemMessage first
+                    && first.getText() != null && first.getText().startsWith(SUMMARY_PREFIX)) {
+                return new Stored(first, all.subList(1, all.size()));
+            }
+            return new Stored(null, all);
+        }
+
+        String summaryText() {
+            return summary == null ? "" : summary.getText().substring(SUMMARY_PREFIX.length());
+        }
+
+        boolean startsWith(List<Message> prefix) {
+            if (messages.size() < prefix.size()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.size(); i++) {
+                Message a = messages.get(i);
+                Message b = prefix.get(i);
+                if (a.getMessageType() != b.getMessageType() || !Objects.equals(a.getText(), b.getText())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
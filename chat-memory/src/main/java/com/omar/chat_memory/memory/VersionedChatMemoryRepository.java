@@ -0,0 +1,40 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * 🔢 Versioned Chat Memory Repository
+ * <p>
+ * {@link ChatMemoryRepository} that keeps a version number per conversation, bumped by every
+ * write and delete, so a writer holding a possibly stale copy (a cache on another instance)
+ * can replace the conversation only if nobody changed it in the meantime.
+ */
+public interface VersionedChatMemoryRepository extends ChatMemoryRepository {
+
+    /**
+     * @param conversationId Conversation to read
+     * @return Messages of the conversation and the version they belong to ({@code 0} if it was never written)
+     */
+    Versioned findVersionedByConversationId(String conversationId);
+
+    /**
+     * Replaces the messages of a conversation if its version is still {@code expectedVersion};
+     * on success the version becomes {@code expectedVersion + 1}.
+     *
+     * @param conversationId  Conversation to write
+     * @param messages        Complete new history
+     * @param expectedVersion Version the caller's copy was read at
+     * @return Whether the write happened (false if another writer got there first)
+     */
+    boolean saveAll(String conversationId, List<Message> messages, long expectedVersion);
+
+    /**
+     * @param messages Messages of the conversation
+     * @param version  Version those messages belong to
+     */
+    record Versioned(List<Message> messages, long version) {
+    }
+}
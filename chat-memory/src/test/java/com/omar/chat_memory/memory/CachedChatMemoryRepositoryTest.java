@@ -0,0 +1,233 @@
+package com.omar.chat_memory.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class CachedChatMemoryRepositoryTest {
+
+    private static final ChatMemoryCacheProperties WRITE_BEHIND =
+            new ChatMemoryCacheProperties(100, Duration.ofMinutes(30), Duration.ofHours(1), 100, false, "test");
+    private static final ChatMemoryCacheProperties WRITE_THROUGH =
+            new ChatMemoryCacheProperties(100, Duration.ofMinutes(30), Duration.ofHours(1), 100, true, "test");
+
+    private final InMemoryVersionedChatMemoryRepository database = new InMemoryVersionedChatMemoryRepository();
+    private final List<String> notified = new CopyOnWriteArrayList<>();
+    private final List<CachedChatMemoryRepository> caches = new ArrayList<>();
+
+    @AfterEach
+    void close() throws InterruptedException {
+        for (CachedChatMemoryRepository cache : caches) {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    void flushReportsWrittenConversations() {
+        var cache = cache(database, WRITE_BEHIND);
+        cache.saveAll("c1", List.of(new UserMessage("hello")));
+        assertThat(database.findByConversationId("c1")).isEmpty();
+
+        cache.flush();
+
+        assertThat(notified).containsExactly("c1");
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText).containsExactly("hello");
+    }
+
+    @Test
+    void writeThroughCommitsBeforeReturning() {
+        var cache = cache(database, WRITE_THROUGH);
+
+        cache.saveAll("c1", List.of(new UserMessage("hello")));
+
+        assertThat(notified).containsExactly("c1");
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText).containsExactly("hello");
+        assertThat(cache.dirtyCount()).isZero();
+    }
+
+    @Test
+    void appendOnStaleCopyKeepsTheOtherInstancesTurns() {
+        var nodeA = cache(database, WRITE_THROUGH);
+        var nodeB = cache(database, WRITE_THROUGH);
+        nodeA.saveAll("c1", List.of(new UserMessage("hello")));
+        List<Message> staleOnB = nodeB.findByConversationId("c1");
+
+        // A appends a turn; B has not been notified yet and appends to its stale copy
+        nodeA.saveAll("c1", append(nodeA.findByConversationId("c1"), "from A"));
+        nodeB.saveAll("c1", append(staleOnB, "from B"));
+
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A", "from B");
+        assertThat(nodeB.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A", "from B");
+    }
+
+    @Test
+    void flushOfStaleCopyKeepsTheOtherInstancesTurns() {
+        var nodeA = cache(database, WRITE_BEHIND);
+        var nodeB = cache(database, WRITE_BEHIND);
+        nodeA.saveAll("c1", List.of(new UserMessage("hello")));
+        nodeA.flush();
+        List<Message> staleOnB = nodeB.findByConversationId("c1");
+
+        nodeA.saveAll("c1", append(nodeA.findByConversationId("c1"), "from A"));
+        nodeB.saveAll("c1", append(staleOnB, "from B"));
+        nodeA.flush();
+        nodeB.flush();
+
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A", "from B");
+        assertThat(nodeB.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A", "from B");
+    }
+
+    @Test
+    void rewriteOfStaleCopyIsRejectedAndReloaded() {
+        var nodeA = cache(database, WRITE_THROUGH);
+        var nodeB = cache(database, WRITE_THROUGH);
+        nodeA.saveAll("c1", List.of(new UserMessage("hello")));
+        nodeB.findByConversationId("c1");
+        nodeA.saveAll("c1", append(nodeA.findByConversationId("c1"), "from A"));
+
+        assertThatThrownBy(() -> nodeB.saveAll("c1", List.of(new UserMessage("summary"))))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A");
+        assertThat(nodeB.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from A");
+    }
+
+    @Test
+    void staleCopyDoesNotBringBackDeletedHistory() {
+        var nodeA = cache(database, WRITE_THROUGH);
+        var nodeB = cache(database, WRITE_THROUGH);
+        nodeA.saveAll("c1", List.of(new UserMessage("hello")));
+        List<Message> staleOnB = nodeB.findByConversationId("c1");
+
+        nodeA.deleteByConversationId("c1");
+        nodeB.saveAll("c1", append(staleOnB, "after delete"));
+
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("after delete");
+    }
+
+    @Test
+    void staleCopyDoesNotBringBackPurgedHistory() {
+        var nodeA = cache(database, WRITE_THROUGH);
+        nodeA.saveAll("c1", List.of(new UserMessage("hello")));
+        nodeA.saveAll("c1", append(nodeA.findByConversationId("c1"), "expired"));
+
+        database.purge("c1");
+        nodeA.saveAll("c1", append(nodeA.findByConversationId("c1"), "after purge"));
+
+        assertThat(database.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("after purge");
+    }
+
+    @Test
+    void invalidationReloadsCleanConversationFromDatabase() {
+        var cache = cache(database, WRITE_THROUGH);
+        cache.saveAll("c1", List.of(new UserMessage("hello")));
+        // another instance appends a turn
+        database.saveAll("c1", List.of(new UserMessage("hello"), new UserMessage("from elsewhere")));
+
+        assertThat(cache.findByConversationId("c1")).hasSize(1);
+        cache.invalidate("c1");
+
+        assertThat(cache.findByConversationId("c1")).extracting(Message::getText)
+                .containsExactly("hello", "from elsewhere");
+    }
+
+    @Test
+    void invalidationKeepsUnflushedWrites() {
+        var cache = cache(database, WRITE_BEHIND);
+        cache.saveAll("c1", List.of(new UserMessage("not flushed yet")));
+
+        assertThat(cache.invalidateAll()).isZero();
+        assertThat(cache.findByConversationId("c1")).extracting(Message::getText).containsExactly("not flushed yet");
+    }
+
+    @Test
+    void deletedConversationIsNotFlushed() {
+        var cache = cache(database, WRITE_BEHIND);
+        cache.saveAll("c1", List.of(new UserMessage("hello")));
+
+        cache.deleteByConversationId("c1");
+        cache.flush();
+
+        assertThat(database.findByConversationId("c1")).isEmpty();
+        assertThat(cache.findByConversationId("c1")).isEmpty();
+        assertThat(cache.dirtyCount()).isZero();
+    }
+
+    @Test
+    void deleteDuringFlushIsNotUndoneByIt() throws Exception {
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var slowDatabase = new InMemoryVersionedChatMemoryRepository() {
+
+            @Override
+            public boolean saveAll(String conversationId, List<Message> messages, long expectedVersion) {
+                writing.countDown();
+                await(release);
+                return super.saveAll(conversationId, messages, expectedVersion);
+            }
+        };
+        var slowCache = cache(slowDatabase, WRITE_BEHIND);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            slowCache.saveAll("c1", List.of(new UserMessage("hello")));
+            Future<?> flush = executor.submit(slowCache::flush);
+            writing.await();
+
+            Future<?> delete = executor.submit(() -> slowCache.deleteByConversationId("c1"));
+            release.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+            delete.get(5, TimeUnit.SECONDS);
+
+            assertThat(slowDatabase.findByConversationId("c1")).isEmpty();
+            assertThat(slowCache.findByConversationId("c1")).isEmpty();
+            assertThat(slowCache.dirtyCount()).isZero();
+        }
+    }
+
+    private CachedChatMemoryRepository cache(VersionedChatMemoryRepository delegate,
+                                             ChatMemoryCacheProperties properties) {
+        var cache = new CachedChatMemoryRepository(delegate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), properties, notified::addAll);
+        caches.add(cache);
+        return cache;
+    }
+
+    private static List<Message> append(List<Message> messages, String text) {
+        List<Message> appended = new ArrayList<>(messages);
+        appended.add(new UserMessage(text));
+        return appended;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.omar.chat_memory.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatMemoryPartitionManagerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void createsPartitionsFromTodayOnward() {
+        manager("2026-10-18T12:00", Duration.ofHours(1)).maintain();
+
+        assertThat(executed()).filteredOn(sql -> sql.contains("PARTITION OF"))
+                .containsExactly(
+                        "CREATE TABLE IF NOT EXISTS spring_ai_chat_memory_p20261018 PARTITION OF spring_ai_chat_memory"
+                                + " FOR VALUES FROM ('2026-10-18') TO ('2026-10-19')",
+                        "CREATE TABLE IF NOT EXISTS spring_ai_chat_memory_p20261019 PARTITION OF spring_ai_chat_memory"
+                                + " FOR VALUES FROM ('2026-10-19') TO ('2026-10-20')",
+                        "CREATE TABLE IF NOT EXISTS spring_ai_chat_memory_p20261020 PARTITION OF spring_ai_chat_memory"
+                                + " FOR VALUES FROM ('2026-10-20') TO ('2026-10-21')");
+    }
+
+    @Test
+    void dropsOnlyPartitionsEntirelyPastTheCutoff() {
+        attached("spring_ai_chat_memory_p20261016", "spring_ai_chat_memory_p20261017",
+                "spring_ai_chat_memory_p20261018", "spring_ai_chat_memory_p20261019");
+
+        // a 1h TTL at 00:30 still reaches into yesterday
+        manager("2026-10-18T00:30", Duration.ofHours(1)).maintain();
+
+        assertThat(executed()).filteredOn(sql -> sql.startsWith("DROP TABLE"))
+                .containsExactly("DROP TABLE spring_ai_chat_memory_p20261016");
+        assertThat(meterRegistry.get("chat.memory.partitions.dropped").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsYesterdayOnceItHasExpired() {
+        attached("spring_ai_chat_memory_p20261017", "spring_ai_chat_memory_p20261018");
+
+        manager("2026-10-18T12:00", Duration.ofHours(1)).maintain();
+
+        assertThat(executed()).filteredOn(sql -> sql.startsWith("DROP TABLE"))
+                .containsExactly("DROP TABLE spring_ai_chat_memory_p20261017");
+    }
+
+    private ChatMemoryPartitionManager manager(String now, Duration ttl) {
+        Clock clock = Clock.fixed(LocalDateTime.parse(now).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        return new ChatMemoryPartitionManager(jdbcTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ChatMemoryRetentionProperties(ttl, Duration.ofMinutes(15), 2), meterRegistry, clock);
+    }
+
+    private void attached(String... partitions) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any())).thenReturn(List.of(partitions));
+    }
+
+    private List<String> executed() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(sql.capture());
+        return sql.getAllValues();
+    }
+}
@@ -0,0 +1,81 @@
+package com.omar.chat_memory.memory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class ConversationTurnQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void turnsOfOneConversationRunInOrder() throws Exception {
+        var queue = new ConversationTurnQueue(new ConversationTurnProperties(10, Duration.ofSeconds(5)), meterRegistry);
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        var first = queue.enter("c1");
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.execute(() -> {
+                try (var turn = queue.enter("c1")) {
+                    events.add("second");
+                }
+            });
+            await().until(() -> meterRegistry.get("chat.conversation.turns.waiting").gauge().value() == 1);
+            events.add("first");
+            first.close();
+        }
+
+        assertThat(events).containsExactly("first", "second");
+        assertThat(queue.activeConversations()).isZero();
+        assertThat(meterRegistry.get("chat.conversation.turns.wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void otherConversationsAreNotBlocked() throws Exception {
+        var queue = new ConversationTurnQueue(new ConversationTurnProperties(10, Duration.ofSeconds(5)), meterRegistry);
+        CountDownLatch entered = new CountDownLatch(1);
+
+        try (var held = queue.enter("c1"); var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.execute(() -> {
+                try (var turn = queue.enter("c2")) {
+                    entered.countDown();
+                }
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsTurnsBeyondQueueLimit() {
+        var queue = new ConversationTurnQueue(new ConversationTurnProperties(0, Duration.ofSeconds(5)), meterRegistry);
+
+        try (var held = queue.enter("c1")) {
+            assertThatThrownBy(() -> queue.enter("c1"))
+                    .isInstanceOf(ConversationTurnQueue.ConversationBusyException.class);
+            assertThat(meterRegistry.get("chat.conversation.turns.rejected").counter().count()).isEqualTo(1);
+        }
+        assertThat(queue.activeConversations()).isZero();
+        queue.enter("c1").close();
+    }
+
+    @Test
+    void rejectsTurnAfterWaitTimeout() {
+        var queue = new ConversationTurnQueue(new ConversationTurnProperties(1, Duration.ofMillis(50)), meterRegistry);
+
+        try (var held = queue.enter("c1")) {
+            assertThatThrownBy(() -> queue.enter("c1"))
+                    .isInstanceOf(ConversationTurnQueue.ConversationBusyException.class);
+        }
+        assertThat(queue.activeConversations()).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package com.omar.chat_memory.memory;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for {@link PartitionedJdbcChatMemoryRepository}, versioned the same way.
+ */
+class InMemoryVersionedChatMemoryRepository implements VersionedChatMemoryRepository {
+
+    private final Map<String, Versioned> conversations = new HashMap<>();
+
+    @Override
+    public synchronized List<String> findConversationIds() {
+        return conversations.entrySet().stream()
+                .filter(e -> !e.getValue().messages().isEmpty())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return findVersionedByConversationId(conversationId).messages();
+    }
+
+    @Override
+    public synchronized Versioned findVersionedByConversationId(String conversationId) {
+        return conversations.getOrDefault(conversationId, new Versioned(List.of(), 0));
+    }
+
+    @Override
+    public synchronized void saveAll(String conversationId, List<Message> messages) {
+        conversations.put(conversationId, new Versioned(List.copyOf(messages),
+                findVersionedByConversationId(conversationId).version() + 1));
+    }
+
+    @Override
+    public synchronized boolean saveAll(String conversationId, List<Message> messages, long expectedVersion) {
+        if (findVersionedByConversationId(conversationId).version() != expectedVersion) {
+            return false;
+        }
+        conversations.put(conversationId, new Versioned(List.copyOf(messages), expectedVersion + 1));
+        return true;
+    }
+
+    @Override
+    public synchronized void deleteByConversationId(String conversationId) {
+        saveAll(conversationId, List.of());
+    }
+
+    /**
+     * Drops the conversation and its version, like the retention purge of expired rows.
+     */
+    synchronized void purge(String conversationId) {
+        conversations.remove(conversationId);
+    }
+}
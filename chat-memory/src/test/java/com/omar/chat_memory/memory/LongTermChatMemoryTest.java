@@ -0,0 +1,166 @@
+package com.omar.chat_memory.memory;
+
+import com.pgvector.PGvector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LongTermChatMemoryTest {
+
+    private static final LongTermMemoryProperties PROPERTIES = new LongTermMemoryProperties(true, 3, 0.6);
+    private static final ChatMemoryRetentionProperties RETENTION =
+            new ChatMemoryRetentionProperties(Duration.ofHours(1), Duration.ofMinutes(15), 2);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recallRanksOnlyTheConversationsOwnTurnsExactly() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        VectorStore vectorStore = mock(VectorStore.class);
+        EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+        when(embeddingModel.embed("What is my dog's name?")).thenReturn(new float[]{1, 0});
+        var memory = new LongTermChatMemory(vectorStore, embeddingModel, jdbcTemplate, PROPERTIES, RETENTION);
+
+        memory.recall("c1", "What is my dog's name?");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<RowMapper<Document>> mapper = ArgumentCaptor.forClass(RowMapper.class);
+        verify(jdbcTemplate).query(sql.capture(), mapper.capture(), eq("c1"), any(PGvector.class),
+                any(PGvector.class), eq(1 - 0.6), eq(3));
+        assertThat(sql.getValue()).contains("AS MATERIALIZED", "WHERE metadata->>'conversation_id' = ?",
+                "ORDER BY distance", "LIMIT ?");
+        // the approximate index (and its post-filtering) is never used for recall
+        verifyNoInteractions(vectorStore);
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("id")).thenReturn("t1");
+        when(row.getString("content")).thenReturn("User: My dog is called Rex.\nAssistant: Nice name!");
+        when(row.getString("metadata")).thenReturn("{\"conversation_id\":\"c1\",\"question\":\"My dog is called Rex.\"}");
+        when(row.getDouble("distance")).thenReturn(0.25);
+        Document turn = mapper.getValue().mapRow(row, 0);
+        assertThat(turn.getMetadata()).containsEntry(LongTermChatMemory.QUESTION, "My dog is called Rex.");
+        assertThat(turn.getScore()).isEqualTo(0.75);
+    }
+
+    @Test
+    void disabledRecallSkipsTheDatabase() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        EmbeddingModel embeddingModel = mock(EmbeddingModel.class);
+        var memory = new LongTermChatMemory(mock(VectorStore.class), embeddingModel, jdbcTemplate,
+                new LongTermMemoryProperties(false, 3, 0.6), RETENTION);
+
+        assertThat(memory.recall("c1", "Hello")).isEmpty();
+        verifyNoInteractions(jdbcTemplate, embeddingModel);
+    }
+
+    /**
+     * Needs a pgvector database, e.g. the one from docker-compose.yml:
+     * {@code PGVECTOR_TEST_URL=jdbc:postgresql://localhost:5432/postgres?user=postgres&password=postgres}.
+     * Uses the real long-term memory table and removes its test rows afterwards.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "PGVECTOR_TEST_URL", matches = ".+")
+    void recallFindsTheConversationsTurnAmongManyConversations() {
+        var jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(System.getenv("PGVECTOR_TEST_URL")));
+        var embeddingModel = new TopicEmbeddingModel();
+        PgVectorStore vectorStore = PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                .vectorTableName(LongTermChatMemory.TABLE)
+                .distanceType(PgDistanceType.COSINE_DISTANCE)
+                .indexType(PgIndexType.HNSW)
+                .dimensions(TopicEmbeddingModel.DIMENSIONS)
+                .initializeSchema(true)
+                .build();
+        vectorStore.afterPropertiesSet();
+        var memory = new LongTermChatMemory(vectorStore, embeddingModel, jdbcTemplate, PROPERTIES, RETENTION);
+        memory.initialize();
+        try {
+            // far more equally relevant turns in other conversations than ef_search (40) candidates
+            List<Document> turns = new ArrayList<>(IntStream.range(0, 2_000)
+                    .mapToObj(i -> turn("test-other-" + i, "My dog is called Dog" + i + "."))
+                    .toList());
+            turns.add(turn("test-target", "My dog is called Rex."));
+            for (int from = 0; from < turns.size(); from += 500) {
+                vectorStore.add(turns.subList(from, Math.min(from + 500, turns.size())));
+            }
+
+            assertThat(memory.recall("test-target", "What is my dog's name?"))
+                    .extracting(Document::getText)
+                    .containsExactly("User: My dog is called Rex.\nAssistant: Noted.");
+        }
+        finally {
+            jdbcTemplate.update("DELETE FROM " + LongTermChatMemory.TABLE + " WHERE metadata->>'"
+                    + LongTermChatMemory.CONVERSATION_ID + "' LIKE 'test-%'");
+        }
+    }
+
+    private static Document turn(String conversationId, String question) {
+        return new Document("User: " + question + "\nAssistant: Noted.", Map.of(
+                LongTermChatMemory.CONVERSATION_ID, conversationId,
+                LongTermChatMemory.QUESTION, question,
+                LongTermChatMemory.CREATED_AT, System.currentTimeMillis()));
+    }
+
+    /**
+     * Embeds every text mentioning a dog close to the same direction, slightly spread by its hash.
+     */
+    private static final class TopicEmbeddingModel implements EmbeddingModel {
+
+        static final int DIMENSIONS = 8;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private static float[] vector(String text) {
+            float[] vector = new float[DIMENSIONS];
+            vector[text.toLowerCase(Locale.ROOT).contains("dog") ? 0 : 1] = 1;
+            int hash = text.hashCode();
+            for (int i = 2; i < DIMENSIONS; i++) {
+                vector[i] = ((hash >> (i * 4)) & 0xF) / 100f;
+            }
+            return vector;
+        }
+    }
+}
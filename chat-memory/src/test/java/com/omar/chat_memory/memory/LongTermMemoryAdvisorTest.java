@@ -0,0 +1,86 @@
+package com.omar.chat_memory.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LongTermMemoryAdvisorTest {
+
+    private final LongTermChatMemory longTermMemory = mock(LongTermChatMemory.class);
+    private final LongTermMemoryAdvisor advisor = new LongTermMemoryAdvisor(longTermMemory);
+    private final AdvisorChain chain = mock(AdvisorChain.class);
+
+    @Test
+    void injectsRecalledTurnsMissingFromWindowBeforeUserMessage() {
+        when(longTermMemory.recall("c1", "What is my dog's name?")).thenReturn(List.of(
+                turn("My dog is called Rex.", "Nice name!"),
+                turn("How is the weather?", "Sunny.")));
+        var request = request(List.of(
+                new UserMessage("How is the weather?"),
+                new AssistantMessage("Sunny."),
+                new UserMessage("What is my dog's name?")));
+
+        List<Message> messages = advisor.before(request, chain).prompt().getInstructions();
+
+        assertThat(messages).hasSize(4);
+        assertThat(messages.get(2)).isInstanceOf(SystemMessage.class);
+        assertThat(messages.get(2).getText())
+                .startsWith(LongTermMemoryAdvisor.RECALL_PREFIX)
+                .contains("My dog is called Rex.")
+                .doesNotContain("How is the weather?");
+        assertThat(messages.get(3).getText()).isEqualTo("What is my dog's name?");
+    }
+
+    @Test
+    void leavesPromptUntouchedWhenNothingIsRecalled() {
+        when(longTermMemory.recall("c1", "Hello")).thenReturn(List.of());
+        var request = request(List.of(new UserMessage("Hello")));
+
+        assertThat(advisor.before(request, chain).prompt().getInstructions())
+                .containsExactly(new UserMessage("Hello"));
+    }
+
+    @Test
+    void archivesCompletedTurn() {
+        when(longTermMemory.recall("c1", "Hello")).thenReturn(List.of());
+        var advised = advisor.before(request(List.of(new UserMessage("Hello"))), chain);
+        var response = ChatClientResponse.builder()
+                .chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage("Hi there!")))))
+                .context(advised.context())
+                .build();
+
+        advisor.after(response, chain);
+
+        verify(longTermMemory).remember("c1", "Hello", "Hi there!");
+    }
+
+    private static ChatClientRequest request(List<Message> messages) {
+        return ChatClientRequest.builder()
+                .prompt(new Prompt(messages))
+                .context(Map.of(ChatMemory.CONVERSATION_ID, "c1"))
+                .build();
+    }
+
+    private static Document turn(String question, String answer) {
+        return new Document("User: " + question + "\nAssistant: " + answer,
+                Map.of(LongTermChatMemory.CONVERSATION_ID, "c1", LongTermChatMemory.QUESTION, question));
+    }
+}
@@ -0,0 +1,109 @@
+package com.omar.chat_memory.memory;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PartitionedJdbcChatMemoryRepositoryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final PartitionedJdbcChatMemoryRepository repository = new PartitionedJdbcChatMemoryRepository(
+            jdbcTemplate, new TransactionTemplate(transactionManager),
+            new ChatMemoryRetentionProperties(Duration.ofHours(1), Duration.ofMinutes(15), 2));
+
+    @Test
+    void saveAllReplacesConversationInOneTransactionKeepingOrder() throws Exception {
+        repository.saveAll("c1", List.of(new UserMessage("hi"), new AssistantMessage("hello")));
+
+        InOrder inOrder = inOrder(transactionManager, jdbcTemplate);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(jdbcTemplate).update(anyString(), eq("c1"), any(Timestamp.class));
+        ArgumentCaptor<BatchPreparedStatementSetter> setter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), setter.capture());
+        inOrder.verify(transactionManager).commit(any());
+
+        assertThat(setter.getValue().getBatchSize()).isEqualTo(2);
+        PreparedStatement first = mock(PreparedStatement.class);
+        PreparedStatement second = mock(PreparedStatement.class);
+        setter.getValue().setValues(first, 0);
+        setter.getValue().setValues(second, 1);
+        verify(first).setString(2, "hi");
+        verify(first).setString(3, "USER");
+        verify(second).setString(2, "hello");
+        verify(second).setString(3, "ASSISTANT");
+
+        ArgumentCaptor<Timestamp> firstTime = ArgumentCaptor.forClass(Timestamp.class);
+        ArgumentCaptor<Timestamp> secondTime = ArgumentCaptor.forClass(Timestamp.class);
+        verify(first).setTimestamp(eq(4), firstTime.capture());
+        verify(second).setTimestamp(eq(4), secondTime.capture());
+        assertThat(secondTime.getValue()).isAfter(firstTime.getValue());
+        assertThat(firstTime.getValue().toInstant()).isCloseTo(Instant.now(), within(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void conditionalSaveLeavesMessagesAloneWhenTheVersionMovedOrWasPurged() {
+        // no row matches both when another writer moved the version and when the row is gone
+        when(jdbcTemplate.update(startsWith("UPDATE"), eq(6L), eq("c1"), eq(5L))).thenReturn(0);
+
+        assertThat(repository.saveAll("c1", List.of(new UserMessage("hi")), 5)).isFalse();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void conditionalSaveReplacesMessagesWhenTheVersionMatches() {
+        when(jdbcTemplate.update(startsWith("UPDATE"), eq(6L), eq("c1"), eq(5L))).thenReturn(1);
+
+        assertThat(repository.saveAll("c1", List.of(new UserMessage("hi")), 5)).isTrue();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void onlyAWriterThatSawNoVersionCreatesTheVersionRow() {
+        when(jdbcTemplate.update(contains("ON CONFLICT (conversation_id) DO NOTHING"), eq("c1"))).thenReturn(1, 0);
+
+        assertThat(repository.saveAll("c1", List.of(new UserMessage("hi")), 0)).isTrue();
+        assertThat(repository.saveAll("c1", List.of(new UserMessage("hi")), 0)).isFalse();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsAreBoundedByTheRetentionCutoff() {
+        repository.findByConversationId("c1");
+
+        ArgumentCaptor<Object> cutoff = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), eq("c1"), cutoff.capture());
+        assertThat(((Timestamp) cutoff.getValue()).toInstant())
+                .isCloseTo(Instant.now().minus(Duration.ofHours(1)), within(Duration.ofSeconds(5)));
+    }
+}
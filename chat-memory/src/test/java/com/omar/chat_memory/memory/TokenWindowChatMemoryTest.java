@@ -0,0 +1,96 @@
+package com.omar.chat_memory.memory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenWindowChatMemoryTest {
+
+    private final ChatMemoryRepository repository = new InMemoryChatMemoryRepository();
+    private final ConversationSummarizer summarizer = mock(ConversationSummarizer.class);
+
+    @Test
+    void keepsNewestMessagesWithinTokenBudget() {
+        var memory = memory(new ChatMemoryWindowProperties(60, 250, false));
+
+        for (int i = 0; i < 10; i++) {
+            memory.add("c1", List.of(new UserMessage("question number " + i + " about the weather")));
+        }
+
+        List<Message> window = memory.get("c1");
+        assertThat(window).isNotEmpty().hasSizeLessThan(10);
+        assertThat(window.getLast().getText()).isEqualTo("question number 9 about the weather");
+        assertThat(window.stream().mapToInt(memory::tokens).sum()).isLessThanOrEqualTo(60);
+        assertThat(repository.findByConversationId("c1")).hasSize(10);
+    }
+
+    @Test
+    void compactsOverflowIntoRunningSummary() {
+        when(summarizer.summarize(any(), anyList())).thenReturn("The user asked about the weather.");
+        var memory = memory(new ChatMemoryWindowProperties(60, 250, true));
+
+        for (int i = 0; i < 10; i++) {
+            memory.add("c1", List.of(new UserMessage("question number " + i + " about the weather"),
+                    new AssistantMessage("answer " + i)));
+        }
+
+        await().untilAsserted(() -> assertThat(repository.findByConversationId("c1").getFirst())
+                .isInstanceOf(SystemMessage.class));
+
+        List<Message> window = memory.get("c1");
+        assertThat(window.getFirst().getText())
+                .isEqualTo(TokenWindowChatMemory.SUMMARY_PREFIX + "The user asked about the weather.");
+        assertThat(window.getLast().getText()).isEqualTo("answer 9");
+        assertThat(window.stream().mapToInt(memory::tokens).sum()).isLessThanOrEqualTo(60);
+    }
+
+    @Test
+    void summarizerFailureLeavesHistoryIntact() {
+        when(summarizer.summarize(any(), anyList())).thenThrow(new IllegalStateException("model down"));
+        var memory = memory(new ChatMemoryWindowProperties(15, 250, true));
+
+        memory.add("c1", List.of(new UserMessage("first question about the weather today"),
+                new UserMessage("second question about the weather tomorrow")));
+
+        assertThat(repository.findByConversationId("c1")).hasSize(2);
+        assertThat(memory.get("c1")).extracting(Message::getText)
+                .containsExactly("second question about the weather tomorrow");
+    }
+
+    @Test
+    void oversizedSummaryIsCappedSoRecentMessagesStayInWindow() {
+        when(summarizer.summarize(any(), anyList())).thenReturn("The user asked about the weather. ".repeat(50));
+        var memory = memory(new ChatMemoryWindowProperties(60, 250, true));
+
+        for (int i = 0; i < 10; i++) {
+            memory.add("c1", List.of(new UserMessage("question number " + i + " about the weather")));
+        }
+
+        await().untilAsserted(() -> assertThat(repository.findByConversationId("c1").getFirst())
+                .isInstanceOf(SystemMessage.class));
+
+        List<Message> window = memory.get("c1");
+        assertThat(window.getFirst().getText()).startsWith(TokenWindowChatMemory.SUMMARY_PREFIX).endsWith("…");
+        assertThat(memory.tokens(window.getFirst())).isLessThanOrEqualTo(30);
+        assertThat(window.getLast().getText()).isEqualTo("question number 9 about the weather");
+        assertThat(window.stream().mapToInt(memory::tokens).sum()).isLessThanOrEqualTo(60);
+    }
+
+    private TokenWindowChatMemory memory(ChatMemoryWindowProperties properties) {
+        return new TokenWindowChatMemory(repository, new JTokkitTokenCountEstimator(), summarizer, properties);
+    }
+}
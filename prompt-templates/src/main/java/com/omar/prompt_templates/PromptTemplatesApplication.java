@@ -1,9 +1,15 @@
 package com.omar.prompt_templates;
 
+import com.omar.prompt_templates.prompt.AcmeTopicFilterProperties;
+import com.omar.prompt_templates.prompt.BlogPostCacheProperties;
+import com.omar.prompt_templates.prompt.PromptCacheProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties({PromptCacheProperties.class, AcmeTopicFilterProperties.class,
+		BlogPostCacheProperties.class})
 public class PromptTemplatesApplication {
 
 	public static void main(String[] args) {
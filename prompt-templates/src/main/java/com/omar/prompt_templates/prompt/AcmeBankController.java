@@ -11,19 +11,38 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/acme")
 public class AcmeBankController {
 
+    static final String OFF_TOPIC_REPLY = "I can only help with banking-related questions.";
+
+    // Kept constant and sent first, so every request starts with the same cacheable prefix
+    static final String SYSTEM_INSTRUCTIONS = """
+            You are a customer service assistant for AcmeBank.
+            You can ONLY discuss:
+            - Account balances and transactions
+            - Branch locations and hours
+            - General banking services
+            
+            If asked about anything else, respond: "%s"
+            """.formatted(OFF_TOPIC_REPLY);
+
     private final ChatClient chatClient;
+    private final AcmeTopicFilter topicFilter;
 
     /**
      * Constructor-based dependency injection of ChatClient.Builder.
      * The builder is customized with a SimpleLoggerAdvisor to log prompts
-     * and responses for debugging or monitoring purposes.
+     * and responses for debugging or monitoring purposes, and a PromptCacheAdvisor
+     * that keeps the instructions cacheable by the provider and measures cache hits.
      *
      * @param builder ChatClient.Builder injected by Spring
+     * @param promptCacheAdvisor Prompt caching advisor
+     * @param topicFilter Local filter answering clearly off-topic questions without the model
      */
-    public AcmeBankController(ChatClient.Builder builder) {
+    public AcmeBankController(ChatClient.Builder builder, PromptCacheAdvisor promptCacheAdvisor,
+                              AcmeTopicFilter topicFilter) {
         this.chatClient = builder
-                .defaultAdvisors(new SimpleLoggerAdvisor())
+                .defaultAdvisors(new SimpleLoggerAdvisor(), promptCacheAdvisor)
                 .build();
+        this.topicFilter = topicFilter;
     }
 
     /**
@@ -37,6 +56,9 @@ public class AcmeBankController {
      * - For any off-topic questions, respond with:
      *   "I can only help with banking-related questions."
      * <p>
+     * Clearly off-topic questions (jokes, poems, recipes...) get that reply right away from
+     * {@link AcmeTopicFilter}, without calling the model.
+     * <p>
      * Example usage:
      *   GET /acme/chat?message=What is my account balance?
      *
@@ -45,20 +67,11 @@ public class AcmeBankController {
      */
     @GetMapping("/chat")
     public String chat(@RequestParam String message) {
-        var systemInstructions = """
-        You are a customer service assistant for AcmeBank.
-        You can ONLY discuss:
-        - Account balances and transactions
-        - Branch locations and hours
-        - General banking services
-        
-        If asked about anything else, respond: "I can only help with banking-related questions."
-        """;
-
-        return chatClient.prompt()
-                .user(message)
-                .system(systemInstructions)
+        return topicFilter.answer(message, question -> chatClient.prompt()
+                .system(SYSTEM_INSTRUCTIONS)
+                .user(question)
+                .advisors(a -> a.param(PromptCacheAdvisor.ENDPOINT, "acme.chat"))
                 .call()
-                .content();
+                .content());
     }
 }
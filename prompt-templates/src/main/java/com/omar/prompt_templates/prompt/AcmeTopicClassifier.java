@@ -0,0 +1,171 @@
+package com.omar.prompt_templates.prompt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-process classifier deciding whether a question sent to {@link AcmeBankController} is about
+ * banking, before any model call is made.
+ * <p>
+ * It matches words and word pairs against two small lexicons: banking intents (accounts, cards,
+ * transfers, branches...) and subjects that are clearly something else (jokes, poems, recipes,
+ * sports, programming...). A question is only {@link Topic#OFF_TOPIC} when it hits nothing in the
+ * first lexicon and either two entries of the second, or one right after a request verb
+ * ("tell me a joke", "write a poem"); anything else the model may still answer goes through as
+ * {@link Topic#BANKING} or {@link Topic#UNCERTAIN}. Blocking a real customer question is worse
+ * than paying for a model call that ends up refusing, so the rules lean towards forwarding:
+ * a single off-topic word is not enough, and words a customer may well use with the bank
+ * (weather, code, travel, meals, hotels) are not in the off-topic lexicon, since "Are you closed
+ * because of the weather?" or "I'm going on vacation, do I need to tell you?" are questions for
+ * the bank.
+ * <p>
+ * Stateless and cheap: classifying a question takes microseconds, against seconds for a model call.
+ */
+public class AcmeTopicClassifier {
+
+    public enum Topic {
+        /** Mentions a banking intent; sent to the model. */
+        BANKING,
+        /** Clearly unrelated to banking; answered locally with the canned reply. */
+        OFF_TOPIC,
+        /** No signal either way, or mixed signals; sent to the model, which enforces the rules. */
+        UNCERTAIN
+    }
+
+    private static final Set<String> BANKING = normalized("""
+            account balance transaction transfer deposit withdraw withdrawal branch atm card debit credit
+            loan mortgage interest saving checking overdraft fee statement payment pay wire routing iban swift
+            pin cheque bank banking acmebank acme teller cash money fund refund charge dispute fraud
+            apr paycheck payee currency pending spending overdrawn chargeback
+            opening_hours business_hours exchange_rate direct_deposit online_banking mobile_banking
+            open_on close_on closing_time close sort_code
+            """);
+
+    private static final Set<String> OFF_TOPIC = normalized("""
+            joke poem poetry haiku limerick story song lyric recipe cook cooking bake
+            movie film actor actress celebrity football soccer basketball baseball nba nfl videogame game chess sport
+            president election politics translate translation python javascript programming
+            homework essay math equation horoscope zodiac dog cat pet pizza
+            music riddle trivia dinosaur planet galaxy philosophy girlfriend boyfriend dating
+            workout diet sing dance painting novel
+            """);
+
+    // an off-topic word at most REQUEST_REACH words after one of these is an explicit request
+    private static final Set<String> REQUEST_VERBS = normalized("""
+            tell write sing give recommend suggest explain teach compose
+            """);
+
+    private static final int REQUEST_REACH = 3;
+
+    /**
+     * @param question Question as typed by the customer
+     * @return Topic of the question
+     */
+    public Topic classify(String question) {
+        List<String> words = words(question);
+        int banking = 0;
+        int offTopic = 0;
+        boolean request = false;
+        int lastVerb = -REQUEST_REACH - 1;
+        String previous = null;
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            banking += hits(BANKING, word, previous);
+            int wordHits = hits(OFF_TOPIC, word, previous);
+            offTopic += wordHits;
+            request |= wordHits > 0 && i - lastVerb <= REQUEST_REACH;
+            if (REQUEST_VERBS.contains(word)) {
+                lastVerb = i;
+            }
+            previous = word;
+        }
+        if (banking > 0) {
+            return banking >= offTopic ? Topic.BANKING : Topic.UNCERTAIN;
+        }
+        return offTopic >= 2 || request ? Topic.OFF_TOPIC : Topic.UNCERTAIN;
+    }
+
+    private static int hits(Set<String> lexicon, String word, String previous) {
+        int hits = lexicon.contains(word) ? 1 : 0;
+        if (previous != null && lexicon.contains(previous + "_" + word)) {
+            hits++;
+        }
+        return hits;
+    }
+
+    /**
+     * Lower-cased, lightly stemmed words, so "ATMs" matches "atm" and "charged" or "charging"
+     * matches "charge". The lexicons go through the same stemming.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            }
+            else if (!letter && start >= 0) {
+                words.add(stem(text.substring(start, i).toLowerCase(Locale.ROOT)));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Drops a plural {@code s}, then an {@code -ed} or {@code -ing} ending (and the consonant it
+     * doubled, as in "transferred"), then a final {@code e}: "charges", "charged", "charging" and
+     * "charge" all become "charg".
+     */
+    private static String stem(String word) {
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        String base = withoutSuffix(word, "ing");
+        if (base == null) {
+            base = withoutSuffix(word, "ed");
+        }
+        if (base != null) {
+            word = undouble(base);
+        }
+        if (word.length() > 3 && word.endsWith("e")) {
+            word = word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    // the suffix is only removed if at least three letters with a vowel remain ("sing", "need" stay)
+    private static String withoutSuffix(String word, String suffix) {
+        if (!word.endsWith(suffix) || word.length() - suffix.length() < 3) {
+            return null;
+        }
+        String base = word.substring(0, word.length() - suffix.length());
+        for (int i = 0; i < base.length(); i++) {
+            if ("aeiouy".indexOf(base.charAt(i)) >= 0) {
+                return base;
+            }
+        }
+        return null;
+    }
+
+    private static String undouble(String base) {
+        int n = base.length();
+        char last = base.charAt(n - 1);
+        if (last == base.charAt(n - 2) && "aeioulsz".indexOf(last) < 0) {
+            return base.substring(0, n - 1);
+        }
+        return base;
+    }
+
+    // word pairs are written with an underscore, e.g. opening_hours
+    private static Set<String> normalized(String lexicon) {
+        return Arrays.stream(lexicon.strip().split("\\s+"))
+                .map(entry -> String.join("_", words(entry.replace('_', ' '))))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
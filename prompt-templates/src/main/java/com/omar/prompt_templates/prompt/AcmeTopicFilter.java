@@ -0,0 +1,98 @@
+package com.omar.prompt_templates.prompt;
+
+import com.omar.prompt_templates.prompt.AcmeTopicClassifier.Topic;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * Answers clearly off-topic {@link AcmeBankController} questions with the canned reply, without
+ * a model round trip, and forwards everything else to the model.
+ * <p>
+ * Metrics:
+ * - {@code acme.topic.classification}: time spent classifying a question
+ * - {@code acme.topic.questions{topic, handled=local|model, model_reply}}: one count per
+ *   question. Forwarded questions the model still refused ({@code model_reply=refused}) are
+ *   off-topic questions the filter let through.
+ * - {@code acme.topic.shadow{model_reply}}: locally answered questions that were also sent to the
+ *   model in the background ({@code acme.topic-filter.shadow-sample-rate}). The share with
+ *   {@code model_reply=refused} is the precision of the local answers.
+ */
+@Component
+public class AcmeTopicFilter implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AcmeTopicFilter.class);
+
+    private final AcmeTopicClassifier classifier = new AcmeTopicClassifier();
+    private final AcmeTopicFilterProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer classification;
+    private final ExecutorService shadowExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AcmeTopicFilter(AcmeTopicFilterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.classification = Timer.builder("acme.topic.classification")
+                .description("Time spent classifying a question before any model call")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param question Customer question
+     * @param model    Asks the model, used unless the question is answered locally
+     * @return The canned reply for off-topic questions, the model's answer otherwise
+     */
+    public String answer(String question, UnaryOperator<String> model) {
+        Topic topic = classification.record(() -> classifier.classify(question));
+        if (topic == Topic.OFF_TOPIC && properties.enabled()) {
+            questions(topic, "local", "none").increment();
+            if (ThreadLocalRandom.current().nextDouble() < properties.shadowSampleRate()) {
+                shadowExecutor.execute(() -> shadow(question, model));
+            }
+            return AcmeBankController.OFF_TOPIC_REPLY;
+        }
+        String answer = model.apply(question);
+        questions(topic, "model", reply(answer)).increment();
+        return answer;
+    }
+
+    private void shadow(String question, UnaryOperator<String> model) {
+        try {
+            Counter.builder("acme.topic.shadow")
+                    .description("Locally answered questions also sent to the model, by the model's reply")
+                    .tag("model_reply", reply(model.apply(question)))
+                    .register(meterRegistry)
+                    .increment();
+        }
+        catch (RuntimeException ex) {
+            log.debug("Shadow model call failed", ex);
+        }
+    }
+
+    private static String reply(String answer) {
+        return answer != null && answer.contains(AcmeBankController.OFF_TOPIC_REPLY) ? "refused" : "answered";
+    }
+
+    private Counter questions(Topic topic, String handled, String modelReply) {
+        return Counter.builder("acme.topic.questions")
+                .description("Questions to the banking assistant by local topic and who answered them")
+                .tag("topic", topic.name().toLowerCase())
+                .tag("handled", handled)
+                .tag("model_reply", modelReply)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        shadowExecutor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package com.omar.prompt_templates.prompt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Local off-topic filter in front of {@link AcmeBankController}, see {@link AcmeTopicFilter}.
+ * <p>
+ * Usage in application.yaml:
+ *   acme:
+ *     topic-filter:
+ *       enabled: true
+ *       shadow-sample-rate: 0.01
+ *
+ * @param enabled          Answer off-topic questions locally; when off, questions are still
+ *                         classified and measured but always sent to the model
+ * @param shadowSampleRate Fraction of locally answered questions also sent to the model in the
+ *                         background, to measure how often the model agrees they are off-topic
+ */
+@ConfigurationProperties("acme.topic-filter")
+public record AcmeTopicFilterProperties(@DefaultValue("true") boolean enabled,
+                                        @DefaultValue("0.0") double shadowSampleRate) {
+}
@@ -1,19 +1,62 @@
 package com.omar.prompt_templates.prompt;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/article")
 public class ArticleController {
 
+    // A system message in LLMs is a special type of input that provides high-level instructions, context, or behavioral
+    // guidelines to the model before it processes user queries. Think of it as the "behind-the-scenes"
+    // instructions that shape how the AI should respond.
+    //
+    // Use it as a guide or a restriction to the model's behavior. Kept constant and sent first,
+    // so every request starts with the same cacheable prefix.
+    static final String BLOG_POST_GUIDELINES = """
+            Blog Post Generator Guidelines:
+            
+            1. Length & Purpose: Generate 500-word blog posts that inform and engage general audiences.
+            
+            2. Structure:
+               - Introduction: Hook readers and establish the topic's relevance
+               - Body: Develop 3 main points with supporting evidence and examples
+               - Conclusion: Summarize key takeaways and include a call-to-action
+            
+            3. Content Requirements:
+               - Include real-world applications or case studies
+               - Incorporate relevant statistics or data points when appropriate
+               - Explain benefits/implications clearly for non-experts
+            
+            4. Tone & Style:
+               - Write in an informative yet conversational voice
+               - Use accessible language while maintaining authority
+               - Break up text with subheadings and short paragraphs
+            
+            5. Response Format: Deliver complete, ready-to-publish posts with a suggested title.
+            """;
+
     private final ChatClient chatClient;
+    private final BlogPostCache postCache;
 
-    public ArticleController(ChatClient.Builder builder) {
-        this.chatClient = builder.build();
+    // Parsed once; a template whose placeholders don't match fails at startup
+    private final CompiledTemplate blogPostRequest =
+            CompiledTemplate.compile("Write me a blog post about {topic}", Map.of()).requireVariables("topic");
+
+    public ArticleController(ChatClient.Builder builder, PromptCacheAdvisor promptCacheAdvisor,
+                             BlogPostCache postCache) {
+        this.chatClient = builder
+                .defaultAdvisors(promptCacheAdvisor)
+                .build();
+        this.postCache = postCache;
     }
 
 
@@ -31,52 +74,69 @@ public class ArticleController {
      * <p>
      * Workflow:
      *  1. System message defines the blog-writing style and guidelines.
-     *  2. User message dynamically injects the requested topic using a template.
+     *  2. User message dynamically injects the requested topic using a template compiled at startup.
      *  3. AI model returns a complete blog post, including title and sections.
+     * <p>
+     * Posts are cached per topic ({@link BlogPostCache}): a repeated topic is answered instantly,
+     * and a post past its TTL is served while a new one is generated in the background.
      *
      * @param topic The topic of the generated blog post.
      * @return A full blog post written by the AI model.
      */
     @GetMapping("/posts/new")
     public String newPost(@RequestParam(value = "topic", defaultValue = "JDK Virtual Threads") String topic) {
+        return postCache.get(topic, this::generate);
+    }
+
+    /**
+     * 🔹 Streaming Blog Post Generator Endpoint
+     * Endpoint: GET /article/posts/new/stream
+     * <p>
+     * Same post as {@code /article/posts/new}, sent as Server-Sent Events while the model writes
+     * it, so the first words show up right away instead of after the whole post is generated.
+     * A cached post for the topic is sent at once as a single event. A post streamed to the end
+     * is cached for the next requests; an interrupted one is not.
+     * <p>
+     * Example Response (text/event-stream):
+     * event:token
+     * data:# Virtual Threads
+     * <p>
+     * event:token
+     * data: in the JDK
+     * <p>
+     * On failure, an event named "error" is sent and the stream ends.
+     *
+     * @param topic The topic of the generated blog post.
+     * @return The blog post as a stream of "token" events.
+     */
+    @GetMapping(value = "/posts/new/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> newPostStream(
+            @RequestParam(value = "topic", defaultValue = "JDK Virtual Threads") String topic) {
+        String cached = postCache.getIfPresent(topic, this::generate);
+        if (cached != null) {
+            return Flux.just(ServerSentEvent.builder(cached).event("token").build());
+        }
+        StringBuilder post = new StringBuilder();
+        return prompt(topic)
+                .stream()
+                .content()
+                .doOnNext(post::append)
+                .doOnComplete(() -> postCache.put(topic, post.toString()))
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .onErrorResume(ex -> Flux.just(ServerSentEvent.builder("Error generating the blog post.")
+                        .event("error").build()));
+    }
 
-        // A system message in LLMs is a special type of input that provides high-level instructions, context, or behavioral
-        // guidelines to the model before it processes user queries. Think of it as the "behind-the-scenes"
-        // instructions that shape how the AI should respond.
-        //
-        // Use it as a guide or a restriction to the model's behavior
-        var system = """
-                Blog Post Generator Guidelines:
-                
-                1. Length & Purpose: Generate 500-word blog posts that inform and engage general audiences.
-                
-                2. Structure:
-                   - Introduction: Hook readers and establish the topic's relevance
-                   - Body: Develop 3 main points with supporting evidence and examples
-                   - Conclusion: Summarize key takeaways and include a call-to-action
-                
-                3. Content Requirements:
-                   - Include real-world applications or case studies
-                   - Incorporate relevant statistics or data points when appropriate
-                   - Explain benefits/implications clearly for non-experts
-                
-                4. Tone & Style:
-                   - Write in an informative yet conversational voice
-                   - Use accessible language while maintaining authority
-                   - Break up text with subheadings and short paragraphs
-                
-                5. Response Format: Deliver complete, ready-to-publish posts with a suggested title.
-                """;
+    private String generate(String topic) {
+        return prompt(topic).call().content();
+    }
 
+    private ChatClient.ChatClientRequestSpec prompt(String topic) {
         return chatClient.prompt()
-                .system(system)
-                .user(u -> {
-                    // Build a dynamic prompt that inserts the actual topic
-                    u.text("Write me a blog post about {topic}");
-                    u.param("topic",topic);
-                })
-                .call()
-                .content();
+                .system(BLOG_POST_GUIDELINES)
+                // Already rendered, so the ChatClient sends it as is instead of parsing a template
+                .user(blogPostRequest.render("topic", topic))
+                .advisors(a -> a.param(PromptCacheAdvisor.ENDPOINT, "article.new-post"));
     }
 
 }
\ No newline at end of file
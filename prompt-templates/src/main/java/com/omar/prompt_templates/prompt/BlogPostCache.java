@@ -0,0 +1,203 @@
+package com.omar.prompt_templates.prompt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * Completed blog posts of {@link ArticleController}, keyed by normalized topic.
+ * <p>
+ * Case and extra whitespace do not create new keys, so "JDK Virtual Threads" and
+ * " jdk  virtual threads" share one post. For each topic:
+ * - A post younger than the TTL is returned without calling the model
+ * - A post past the TTL but within the stale-while-revalidate window is still returned
+ *   instantly, while one background generation replaces it
+ * - Otherwise the first request generates the post; identical requests arriving meanwhile wait
+ *   for it instead of generating their own
+ * - Failed or abandoned generations are not cached; a failed refresh keeps the stale post
+ * <p>
+ * The cache is bounded by {@code article.cache.max-entries}, least recently used first.
+ * <p>
+ * Metrics: {@code article.cache.requests{result=hit|stale|coalesced|miss}} and
+ * {@code article.cache.refreshes{result=success|failure}}.
+ */
+@Component
+public class BlogPostCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BlogPostCache.class);
+
+    private final BlogPostCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Cached> cache;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BlogPostCache(BlogPostCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    /**
+     * @param topic    Requested topic
+     * @param generate Generates the post for a topic
+     * @return Cached, shared or freshly generated post
+     */
+    public String get(String topic, UnaryOperator<String> generate) {
+        String post = getIfPresent(topic, generate);
+        if (post != null) {
+            return post;
+        }
+        String key = normalize(topic);
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            count("coalesced");
+            return join(leader);
+        }
+        try {
+            count("miss");
+            post = generate.apply(topic);
+            put(topic, post);
+            flight.complete(post);
+            return post;
+        }
+        catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns a fresh or stale post without generating one in the request; a stale post is
+     * regenerated in the background.
+     *
+     * @param topic    Requested topic
+     * @param generate Generates the post for a topic, used for the background refresh
+     * @return Cached post, or {@code null} if the caller has to generate it
+     */
+    public String getIfPresent(String topic, UnaryOperator<String> generate) {
+        String key = normalize(topic);
+        Cached cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached == null) {
+            return null;
+        }
+        long age = System.nanoTime() - cached.storedAt;
+        if (age < properties.ttl().toNanos()) {
+            count("hit");
+            return cached.post;
+        }
+        if (age < properties.ttl().plus(properties.staleWhileRevalidate()).toNanos()) {
+            count("stale");
+            refresh(key, topic, generate);
+            return cached.post;
+        }
+        return null;
+    }
+
+    /**
+     * Caches a post generated elsewhere, e.g. assembled from a completed stream.
+     */
+    public void put(String topic, String post) {
+        synchronized (cache) {
+            cache.put(normalize(topic), new Cached(post, System.nanoTime()));
+        }
+    }
+
+    private void refresh(String key, String topic, UnaryOperator<String> generate) {
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                String post = generate.apply(topic);
+                put(topic, post);
+                flight.complete(post);
+                refreshed("success");
+            }
+            catch (RuntimeException | Error ex) {
+                flight.completeExceptionally(ex);
+                refreshed("failure");
+                log.warn("Regenerating the blog post about '{}' failed, keeping the stale one", topic, ex);
+                if (ex instanceof Error error) {
+                    throw error;
+                }
+            }
+            finally {
+                inFlight.remove(key, flight);
+            }
+        });
+    }
+
+    private static String join(CompletableFuture<String> flight) {
+        try {
+            return flight.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("article.cache.requests")
+                .description("Blog post requests by cache outcome; hit, stale and coalesced requests skipped the model")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void refreshed(String result) {
+        Counter.builder("article.cache.refreshes")
+                .description("Background regenerations of stale blog posts")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return Topic as used in cache keys: trimmed, single-spaced, lower case
+     */
+    static String normalize(String topic) {
+        return topic.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    private record Cached(String post, long storedAt) {
+    }
+}
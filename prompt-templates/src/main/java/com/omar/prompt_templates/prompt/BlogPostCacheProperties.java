@@ -0,0 +1,27 @@
+package com.omar.prompt_templates.prompt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the {@link BlogPostCache} behind {@link ArticleController}.
+ * <p>
+ * Usage in application.yaml:
+ *   article:
+ *     cache:
+ *       ttl: 1h
+ *       stale-while-revalidate: 24h
+ *       max-entries: 200
+ *
+ * @param ttl                  How long a generated post is served as is
+ * @param staleWhileRevalidate How long after the TTL a post is still served while a new one is
+ *                             generated in the background; {@code 0} regenerates in the request
+ * @param maxEntries           Posts kept before the least recently used ones are dropped
+ */
+@ConfigurationProperties("article.cache")
+public record BlogPostCacheProperties(@DefaultValue("1h") Duration ttl,
+                                      @DefaultValue("24h") Duration staleWhileRevalidate,
+                                      @DefaultValue("200") int maxEntries) {
+}
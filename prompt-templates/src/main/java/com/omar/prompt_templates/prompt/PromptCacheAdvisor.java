@@ -0,0 +1,119 @@
+package com.omar.prompt_templates.prompt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps requests eligible for provider prompt caching and measures how much of each prompt
+ * the provider served from its cache.
+ * <p>
+ * Providers cache the longest prompt prefix they have seen before (OpenAI does so
+ * automatically from 1024 tokens). The controllers keep their system prompts in constants,
+ * sent first and never rendered as templates, so that prefix is byte-identical on every call.
+ * This advisor adds OpenAI's {@code prompt_cache_key}, one per endpoint, so requests sharing
+ * a prefix land on the same cache.
+ * <p>
+ * Every response's usage is recorded as {@code prompt.tokens{endpoint, cached}}; the cached
+ * count comes from {@code usage.prompt_tokens_details.cached_tokens}. Streamed requests also
+ * ask for usage in the last chunk ({@code stream_options.include_usage}). Callers name the
+ * endpoint with {@code .advisors(a -> a.param(PromptCacheAdvisor.ENDPOINT, "..."))}.
+ */
+@Component
+public class PromptCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final String ENDPOINT = "prompt_cache_endpoint";
+
+    private final PromptCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public PromptCacheAdvisor(PromptCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        String endpoint = String.valueOf(request.context().getOrDefault(ENDPOINT, "unknown"));
+        ChatClientResponse response = chain.nextCall(
+                properties.sendCacheKey() ? withCacheKey(request, endpoint, false) : request);
+        record(endpoint, response.chatResponse());
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        String endpoint = String.valueOf(request.context().getOrDefault(ENDPOINT, "unknown"));
+        return chain.nextStream(properties.sendCacheKey() ? withCacheKey(request, endpoint, true) : request)
+                .doOnNext(response -> record(endpoint, response.chatResponse()));
+    }
+
+    private ChatClientRequest withCacheKey(ChatClientRequest request, String endpoint, boolean streaming) {
+        ChatOptions options = request.prompt().getOptions();
+        OpenAiChatOptions openAiOptions = switch (options) {
+            case null -> new OpenAiChatOptions();
+            case OpenAiChatOptions openAi -> openAi.copy();
+            default -> ModelOptionsUtils.copyToTarget(options, ChatOptions.class, OpenAiChatOptions.class);
+        };
+        openAiOptions.setPromptCacheKey(properties.keyPrefix() + ":" + endpoint);
+        if (streaming) {
+            openAiOptions.setStreamUsage(true);
+        }
+        return request.mutate()
+                .prompt(request.prompt().mutate().chatOptions(openAiOptions).build())
+                .build();
+    }
+
+    private void record(String endpoint, ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getMetadata().getUsage() == null) {
+            return;
+        }
+        Usage usage = chatResponse.getMetadata().getUsage();
+        int promptTokens = usage.getPromptTokens() == null ? 0 : usage.getPromptTokens();
+        if (promptTokens == 0) {
+            // streamed chunks other than the last one carry no usage
+            return;
+        }
+        int cachedTokens = 0;
+        if (usage.getNativeUsage() instanceof OpenAiApi.Usage openAiUsage && openAiUsage.promptTokensDetails() != null
+                && openAiUsage.promptTokensDetails().cachedTokens() != null) {
+            cachedTokens = openAiUsage.promptTokensDetails().cachedTokens();
+        }
+        tokens(endpoint, true).increment(cachedTokens);
+        tokens(endpoint, false).increment(Math.max(0, promptTokens - cachedTokens));
+    }
+
+    private Counter tokens(String endpoint, boolean cached) {
+        return Counter.builder("prompt.tokens")
+                .description("Prompt tokens sent to the model, split by whether the provider served them from its prompt cache")
+                .baseUnit("tokens")
+                .tag("endpoint", endpoint)
+                .tag("cached", String.valueOf(cached))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return PromptCacheAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        // innermost, so it sees exactly what is sent to the model
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.omar.prompt_templates.prompt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Provider-side prompt prefix caching, applied by {@link PromptCacheAdvisor}.
+ * <p>
+ * Usage in application.yaml:
+ *   prompts:
+ *     cache:
+ *       send-cache-key: true
+ *       key-prefix: prompt-templates
+ *
+ * @param sendCacheKey Send OpenAI's {@code prompt_cache_key} so requests sharing a system prompt
+ *                     are routed to the same cache, and ask for usage in streamed responses;
+ *                     turn off for OpenAI-compatible providers that reject these fields
+ * @param keyPrefix    Prefix of the cache key, followed by the endpoint name
+ */
+@ConfigurationProperties("prompts.cache")
+public record PromptCacheProperties(@DefaultValue("true") boolean sendCacheKey,
+                                    @DefaultValue("prompt-templates") String keyPrefix) {
+}
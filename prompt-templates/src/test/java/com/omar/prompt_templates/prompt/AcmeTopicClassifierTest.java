@@ -0,0 +1,69 @@
+package com.omar.prompt_templates.prompt;
+
+import com.omar.prompt_templates.prompt.AcmeTopicClassifier.Topic;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcmeTopicClassifierTest {
+
+    private final AcmeTopicClassifier classifier = new AcmeTopicClassifier();
+
+    @Test
+    void corpusNeverBlocksBankingQuestions() throws IOException {
+        List<String[]> corpus = new ClassPathResource("acme-topic-corpus.tsv")
+                .getContentAsString(StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .map(line -> line.split("\t", 2))
+                .toList();
+
+        int blockedOffTopic = 0;
+        int offTopic = 0;
+        List<String> wronglyBlocked = new ArrayList<>();
+        for (String[] example : corpus) {
+            boolean isOffTopic = example[0].equals("off_topic");
+            boolean isBlocked = classifier.classify(example[1]) == Topic.OFF_TOPIC;
+            offTopic += isOffTopic ? 1 : 0;
+            blockedOffTopic += isBlocked && isOffTopic ? 1 : 0;
+            if (isBlocked && !isOffTopic) {
+                wronglyBlocked.add(example[1]);
+            }
+        }
+
+        assertThat(wronglyBlocked).isEmpty();
+        assertThat((double) blockedOffTopic / offTopic).isGreaterThanOrEqualTo(0.4);
+    }
+
+    @Test
+    void mixedOrUnknownQuestionsAreLeftToTheModel() {
+        assertThat(classifier.classify("Tell me a joke about my account balance")).isEqualTo(Topic.BANKING);
+        assertThat(classifier.classify("Write a poem, a song and a story about ATMs")).isEqualTo(Topic.UNCERTAIN);
+        assertThat(classifier.classify("How tall is Mount Everest?")).isEqualTo(Topic.UNCERTAIN);
+        assertThat(classifier.classify("How many ATMs do you have?")).isEqualTo(Topic.BANKING);
+    }
+
+    @Test
+    void oneOffTopicWordIsNotEnoughWithoutAnExplicitRequest() {
+        assertThat(classifier.classify("Who is your favorite actor?")).isEqualTo(Topic.UNCERTAIN);
+        assertThat(classifier.classify("What's the weather like today?")).isEqualTo(Topic.UNCERTAIN);
+        assertThat(classifier.classify("Tell me a joke")).isEqualTo(Topic.OFF_TOPIC);
+        assertThat(classifier.classify("Can you recommend a good movie?")).isEqualTo(Topic.OFF_TOPIC);
+        assertThat(classifier.classify("Is a cat a better pet than a dog?")).isEqualTo(Topic.OFF_TOPIC);
+    }
+
+    @Test
+    void inflectedWordsMatchTheirLexiconEntry() {
+        assertThat(AcmeTopicClassifier.words("charge charges charged charging"))
+                .containsOnly("charg");
+        assertThat(AcmeTopicClassifier.words("transferred transfers deposited ATMs"))
+                .containsExactly("transfer", "transfer", "deposit", "atm");
+        assertThat(AcmeTopicClassifier.words("sing need string")).containsExactly("sing", "need", "string");
+        assertThat(classifier.classify("Why was I charged twice?")).isEqualTo(Topic.BANKING);
+    }
+}
@@ -0,0 +1,58 @@
+package com.omar.prompt_templates.prompt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcmeTopicFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> modelCalls = new ArrayList<>();
+
+    @Test
+    void answersOffTopicQuestionsLocally() {
+        var filter = new AcmeTopicFilter(new AcmeTopicFilterProperties(true, 0.0), meterRegistry);
+
+        assertThat(filter.answer("Tell me a joke", this::model)).isEqualTo(AcmeBankController.OFF_TOPIC_REPLY);
+        assertThat(modelCalls).isEmpty();
+        assertThat(questions("off_topic", "local", "none")).isEqualTo(1);
+        assertThat(meterRegistry.get("acme.topic.classification").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void forwardsOtherQuestionsAndCountsModelRefusals() {
+        var filter = new AcmeTopicFilter(new AcmeTopicFilterProperties(true, 0.0), meterRegistry);
+
+        assertThat(filter.answer("What is my account balance?", this::model)).isEqualTo("Your balance is $42.");
+        filter.answer("How tall is Mount Everest?", this::model);
+
+        assertThat(modelCalls).hasSize(2);
+        assertThat(questions("banking", "model", "answered")).isEqualTo(1);
+        assertThat(questions("uncertain", "model", "refused")).isEqualTo(1);
+    }
+
+    @Test
+    void disabledFilterStillMeasuresButAlwaysForwards() {
+        var filter = new AcmeTopicFilter(new AcmeTopicFilterProperties(false, 0.0), meterRegistry);
+
+        filter.answer("Tell me a joke", this::model);
+
+        assertThat(modelCalls).containsExactly("Tell me a joke");
+        assertThat(questions("off_topic", "model", "refused")).isEqualTo(1);
+    }
+
+    private String model(String question) {
+        modelCalls.add(question);
+        return question.contains("balance") ? "Your balance is $42." : AcmeBankController.OFF_TOPIC_REPLY;
+    }
+
+    private double questions(String topic, String handled, String modelReply) {
+        return meterRegistry.get("acme.topic.questions")
+                .tag("topic", topic).tag("handled", handled).tag("model_reply", modelReply)
+                .counter().count();
+    }
+}
@@ -0,0 +1,104 @@
+package com.omar.prompt_templates.prompt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class BlogPostCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generations = new AtomicInteger();
+    private final UnaryOperator<String> generate = topic -> "post " + generations.incrementAndGet() + " about " + topic;
+
+    @Test
+    void repeatedTopicsAreServedFromCacheRegardlessOfCaseAndSpacing() {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+
+        assertThat(cache.get("JDK Virtual Threads", generate)).isEqualTo("post 1 about JDK Virtual Threads");
+        assertThat(cache.get("  jdk virtual   threads ", generate)).isEqualTo("post 1 about JDK Virtual Threads");
+        assertThat(generations).hasValue(1);
+        assertThat(requests("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void stalePostIsServedWhileANewOneIsGenerated() {
+        var cache = cache(Duration.ZERO, Duration.ofHours(1));
+        cache.put("Spring AI", "old post");
+
+        assertThat(cache.get("Spring AI", generate)).isEqualTo("old post");
+        await().untilAsserted(() -> assertThat(meterRegistry.find("article.cache.refreshes")
+                .tag("result", "success").counter()).isNotNull());
+        assertThat(cache.getIfPresent("Spring AI", generate)).isEqualTo("post 1 about Spring AI");
+
+        var expired = cache(Duration.ZERO, Duration.ZERO);
+        expired.put("Spring AI", "old post");
+        assertThat(expired.getIfPresent("Spring AI", generate)).isNull();
+    }
+
+    @Test
+    void concurrentMissesShareOneGeneration() throws Exception {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        UnaryOperator<String> slow = topic -> {
+            started.countDown();
+            await().until(() -> release.getCount() == 0);
+            return generate.apply(topic);
+        };
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> cache.get("Kotlin", slow));
+            started.await();
+            Future<String> second = executor.submit(() -> cache.get("kotlin", slow));
+            await().until(() -> requests("coalesced") == 1);
+            release.countDown();
+
+            assertThat(first.get()).isEqualTo(second.get()).isEqualTo("post 1 about Kotlin");
+        }
+        assertThat(generations).hasValue(1);
+    }
+
+    @Test
+    void errorInTheLeaderReleasesFollowers() throws Exception {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        UnaryOperator<String> failing = topic -> {
+            started.countDown();
+            await().until(() -> release.getCount() == 0);
+            throw new StackOverflowError("template recursion");
+        };
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> cache.get("Kotlin", failing));
+            started.await();
+            Future<String> second = executor.submit(() -> cache.get("kotlin", failing));
+            await().until(() -> requests("coalesced") == 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        }
+        assertThat(cache.get("Kotlin", generate)).isEqualTo("post 1 about Kotlin");
+    }
+
+    private BlogPostCache cache(Duration ttl, Duration staleWhileRevalidate) {
+        return new BlogPostCache(new BlogPostCacheProperties(ttl, staleWhileRevalidate, 10), meterRegistry);
+    }
+
+    private double requests(String result) {
+        var counter = meterRegistry.find("article.cache.requests").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,41 @@
+package com.omar.prompt_templates.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.template.st.StTemplateRenderer;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    private static final String TOPIC = "Write me a blog post about {topic}";
+
+    @Test
+    void rendersLikeChatClient() {
+        var compiled = CompiledTemplate.compile(TOPIC, Map.of()).requireVariables("topic");
+
+        assertThat(compiled.render("topic", "JDK Virtual Threads"))
+                .isEqualTo(StTemplateRenderer.builder().build().apply(TOPIC, Map.of("topic", "JDK Virtual Threads")));
+    }
+
+    @Test
+    void foldsConstantsAndKeepsOtherBracesLiteral() {
+        var compiled = CompiledTemplate.compile("{ \"a\": {1} } {topic}{ {format}", Map.of("format", "{\"json\": true}"));
+
+        assertThat(compiled.variables()).containsExactly("topic");
+        assertThat(compiled.render("topic", "Java")).isEqualTo("{ \"a\": {1} } Java{ {\"json\": true}");
+    }
+
+    @Test
+    void missingVariablesFail() {
+        var compiled = CompiledTemplate.compile("{greeting}, {name}!", Map.of());
+
+        assertThatThrownBy(() -> compiled.render("greeting", "Hello"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compiled.requireVariables("greeting"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("name");
+    }
+}
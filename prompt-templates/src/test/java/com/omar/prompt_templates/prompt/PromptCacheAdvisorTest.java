@@ -0,0 +1,79 @@
+package com.omar.prompt_templates.prompt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PromptCacheAdvisorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CallAdvisorChain chain = mock(CallAdvisorChain.class);
+
+    @Test
+    void sendsCacheKeyPerEndpointAndKeepsOptions() {
+        when(chain.nextCall(any())).thenReturn(response(null));
+        var advisor = new PromptCacheAdvisor(new PromptCacheProperties(true, "pt"), meterRegistry);
+
+        advisor.adviseCall(request(ChatOptions.builder().temperature(0.2).build()), chain);
+
+        var sent = ArgumentCaptor.forClass(ChatClientRequest.class);
+        verify(chain).nextCall(sent.capture());
+        var options = (OpenAiChatOptions) sent.getValue().prompt().getOptions();
+        assertThat(options.getPromptCacheKey()).isEqualTo("pt:acme.chat");
+        assertThat(options.getTemperature()).isEqualTo(0.2);
+    }
+
+    @Test
+    void recordsCachedAndUncachedPromptTokens() {
+        var usage = new OpenAiApi.Usage(20, 1200, 1220, new OpenAiApi.Usage.PromptTokensDetails(null, 1024), null);
+        when(chain.nextCall(any())).thenReturn(response(usage));
+        var advisor = new PromptCacheAdvisor(new PromptCacheProperties(false, "pt"), meterRegistry);
+
+        advisor.adviseCall(request(null), chain);
+
+        verify(chain).nextCall(any());
+        assertThat(tokens("true")).isEqualTo(1024);
+        assertThat(tokens("false")).isEqualTo(176);
+    }
+
+    private double tokens(String cached) {
+        return meterRegistry.get("prompt.tokens").tag("endpoint", "acme.chat").tag("cached", cached).counter().count();
+    }
+
+    private static ChatClientRequest request(ChatOptions options) {
+        return ChatClientRequest.builder()
+                .prompt(new Prompt("What are your branch hours?", options))
+                .context(Map.of(PromptCacheAdvisor.ENDPOINT, "acme.chat"))
+                .build();
+    }
+
+    private static ChatClientResponse response(OpenAiApi.Usage usage) {
+        var metadata = ChatResponseMetadata.builder();
+        if (usage != null) {
+            metadata.usage(new DefaultUsage(usage.promptTokens(), usage.completionTokens(), usage.totalTokens(), usage));
+        }
+        var chatResponse = new ChatResponse(List.of(new Generation(new AssistantMessage("9 to 5"))), metadata.build());
+        return ChatClientResponse.builder().chatResponse(chatResponse).build();
+    }
+}
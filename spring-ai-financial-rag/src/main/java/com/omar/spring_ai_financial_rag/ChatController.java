@@ -1,29 +1,90 @@
 package com.omar.spring_ai_financial_rag;
 
+import com.omar.spring_ai_financial_rag.index.VectorSearchTuner;
 import org.springframework.ai.chat.client.ChatClient;
 
 
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
 
 @RestController
 public class ChatController {
 
+    private static final String DEFAULT_QUESTION =
+            "How did the Federal Reserve's recent interest rate cut impact various asset classes according to the analysis";
+
     private final ChatClient chatClient;
+    private final VectorSearchTuner searchTuner;
 
-    public ChatController(ChatClient.Builder builder, VectorStore vectorStore) {
-        this.chatClient = builder
-                .defaultAdvisors(QuestionAnswerAdvisor.builder(vectorStore).build())
-                .build();
+    public ChatController(ChatClient.Builder builder, VectorSearchTuner searchTuner) {
+        this.chatClient = builder.build();
+        this.searchTuner = searchTuner;
     }
 
+    /**
+     * @param efSearch optional HNSW ef_search override for this request's retrieval
+     * @param probes   optional IVFFlat probes override for this request's retrieval
+     */
     @GetMapping("/")
-    public String chat() {
+    public String chat(@RequestParam(required = false) Integer efSearch,
+                       @RequestParam(required = false) Integer probes) {
+        var tuning = searchTuner.defaultTuning().with(efSearch, probes);
         return chatClient.prompt()
-                .user("How did the Federal Reserve's recent interest rate cut impact various asset classes according to the analysis")
+                .advisors(QuestionAnswerAdvisor.builder(searchTuner.tuned(tuning)).build())
+                .user(DEFAULT_QUESTION)
                 .call()
                 .content();
     }
+
+    /**
+     * Streams the RAG answer as Server-Sent Events.
+     * <p>
+     * A single {@code sources} event carrying the retrieved chunks is sent as soon as the
+     * similarity search returns, before the model is called; {@code token} events follow as
+     * the answer is generated.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(@RequestParam(defaultValue = DEFAULT_QUESTION) String question,
+                                                @RequestParam(required = false) Integer efSearch,
+                                                @RequestParam(required = false) Integer probes) {
+        var tuning = searchTuner.defaultTuning().with(efSearch, probes);
+        Sinks.One<List<Source>> sources = Sinks.one();
+        var vectorStore = searchTuner.tuned(tuning,
+                documents -> sources.tryEmitValue(documents.stream().map(Source::from).toList()));
+
+        Flux<ServerSentEvent<Object>> answer = chatClient.prompt()
+                .advisors(QuestionAnswerAdvisor.builder(vectorStore).build())
+                .user(question)
+                .stream()
+                .content()
+                .map(token -> ServerSentEvent.<Object>builder(token).event("token").build())
+                .doFinally(signal -> sources.tryEmitEmpty());
+
+        return Flux.merge(
+                sources.asMono().map(found -> ServerSentEvent.<Object>builder(found).event("sources").build()),
+                answer);
+    }
+
+    /**
+     * A retrieved chunk as cited to the client.
+     *
+     * @param id    vector store document id
+     * @param page  first PDF page of the chunk, when known
+     * @param score similarity score of the chunk
+     */
+    record Source(String id, Object page, Double score) {
+
+        static Source from(Document document) {
+            return new Source(document.getId(), document.getMetadata().get("page_number"), document.getScore());
+        }
+    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.omar.spring_ai_financial_rag;
 
+import com.omar.spring_ai_financial_rag.cache.CorpusVersion;
+import com.omar.spring_ai_financial_rag.dedup.NearDuplicateFilter;
+import com.omar.spring_ai_financial_rag.index.VectorIndexManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.reader.pdf.ParagraphPdfDocumentReader;
@@ -16,19 +19,28 @@ public class IngestionService implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
     private final VectorStore vectorStore;
+    private final VectorIndexManager indexManager;
+    private final CorpusVersion corpusVersion;
+    private final NearDuplicateFilter nearDuplicateFilter;
 
     @Value("classpath:/docs/article_thebeatoutlook2026.pdf")
     private Resource marketPDF;
 
-    public IngestionService(VectorStore vectorStore) {
+    public IngestionService(VectorStore vectorStore, VectorIndexManager indexManager, CorpusVersion corpusVersion,
+                            NearDuplicateFilter nearDuplicateFilter) {
         this.vectorStore = vectorStore;
+        this.indexManager = indexManager;
+        this.corpusVersion = corpusVersion;
+        this.nearDuplicateFilter = nearDuplicateFilter;
     }
 
     @Override
     public void run(String... args) throws Exception {
         var pdfReader = new ParagraphPdfDocumentReader(marketPDF);
         TextSplitter textSplitter = new TokenTextSplitter();
-        vectorStore.accept(textSplitter.apply(pdfReader.get()));
+        vectorStore.accept(nearDuplicateFilter.apply(textSplitter.apply(pdfReader.get())));
         log.info("VectorStore Loaded with data!");
+        indexManager.rebuild();
+        corpusVersion.increment();
     }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.omar.spring_ai_financial_rag;
 
+import com.omar.spring_ai_financial_rag.cache.CacheProperties;
+import com.omar.spring_ai_financial_rag.dedup.DedupProperties;
+import com.omar.spring_ai_financial_rag.index.VectorIndexProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
+@EnableConfigurationProperties({VectorIndexProperties.class, CacheProperties.class, DedupProperties.class})
 @SpringBootApplication
 public class SpringAiFinancialRagApplication {
 
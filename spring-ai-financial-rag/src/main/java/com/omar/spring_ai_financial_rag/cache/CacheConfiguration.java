@@ -0,0 +1,55 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Puts the query embedding cache in front of the vector store.
+ * <p>
+ * The store is declared here instead of by the pgvector starter (which backs off when a
+ * {@link PgVectorStore} bean exists) so it embeds search queries through
+ * {@link CachingEmbeddingModel}. The builder mirrors the starter's, driven by the same
+ * {@code spring.ai.vectorstore.pgvector} properties, and takes the starter's batching strategy
+ * and any observation convention bean.
+ */
+@Configuration
+public class CacheConfiguration {
+
+    @Bean
+    @Primary
+    CachingEmbeddingModel cachingEmbeddingModel(OpenAiEmbeddingModel embeddingModel, CacheProperties properties) {
+        return new CachingEmbeddingModel(embeddingModel, properties.embeddingSize());
+    }
+
+    @Bean
+    PgVectorStore vectorStore(JdbcTemplate jdbcTemplate, CachingEmbeddingModel embeddingModel,
+                              PgVectorStoreProperties properties,
+                              ObjectProvider<ObservationRegistry> observationRegistry,
+                              ObjectProvider<VectorStoreObservationConvention> observationConvention,
+                              BatchingStrategy batchingStrategy) {
+        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
+                .schemaName(properties.getSchemaName())
+                .idType(properties.getIdType())
+                .vectorTableName(properties.getTableName())
+                .vectorTableValidationsEnabled(properties.isSchemaValidation())
+                .dimensions(properties.getDimensions())
+                .distanceType(properties.getDistanceType())
+                .removeExistingVectorStoreTable(properties.isRemoveExistingVectorStoreTable())
+                .indexType(properties.getIndexType())
+                .initializeSchema(properties.isInitializeSchema())
+                .maxDocumentBatchSize(properties.getMaxDocumentBatchSize())
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .customObservationConvention(observationConvention.getIfAvailable(() -> null))
+                .batchingStrategy(batchingStrategy)
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CacheController {
+
+    private final CachingEmbeddingModel embeddingModel;
+    private final RetrievalCache retrievalCache;
+    private final CorpusVersion corpusVersion;
+
+    public CacheController(CachingEmbeddingModel embeddingModel, RetrievalCache retrievalCache,
+                           CorpusVersion corpusVersion) {
+        this.embeddingModel = embeddingModel;
+        this.retrievalCache = retrievalCache;
+        this.corpusVersion = corpusVersion;
+    }
+
+    @GetMapping("/cache/stats")
+    public Stats stats() {
+        return new Stats(corpusVersion.current(), embeddingModel.stats(), retrievalCache.stats());
+    }
+
+    public record Stats(long corpusVersion, LruCache.Stats queryEmbeddings, LruCache.Stats retrieval) {
+    }
+}
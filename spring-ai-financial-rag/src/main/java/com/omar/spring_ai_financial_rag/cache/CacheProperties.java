@@ -0,0 +1,21 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Sizes of the retrieval-side caches.
+ * <p>
+ * Usage in application.yaml:
+ *   financial-rag:
+ *     cache:
+ *       embedding-size: 10000
+ *       retrieval-size: 1000
+ *
+ * @param embeddingSize max query embeddings kept (one float[1536] each, ~6 KB)
+ * @param retrievalSize max cached search results
+ */
+@ConfigurationProperties("financial-rag.cache")
+public record CacheProperties(@DefaultValue("10000") int embeddingSize,
+                              @DefaultValue("1000") int retrievalSize) {
+}
@@ -0,0 +1,48 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} decorator that remembers query embeddings.
+ * <p>
+ * Only {@link #embed(String)} is cached, which is what the vector store uses to embed search
+ * queries. Document embedding during ingestion goes through {@link #call(EmbeddingRequest)}
+ * untouched. Embeddings depend on the text alone, so entries survive corpus changes.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final LruCache<String, float[]> cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, int maxSize) {
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maxSize);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return cache.get(text, delegate::embed);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public LruCache.Stats stats() {
+        return cache.stats();
+    }
+}
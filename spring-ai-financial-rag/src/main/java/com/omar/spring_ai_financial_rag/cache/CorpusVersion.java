@@ -0,0 +1,23 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped every time the vector store content changes.
+ * Cached retrieval results are only valid for the version they were computed against.
+ */
+@Component
+public class CorpusVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
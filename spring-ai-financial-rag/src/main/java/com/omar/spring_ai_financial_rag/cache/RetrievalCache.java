@@ -0,0 +1,61 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Caches similarity search results per normalized question and search parameters.
+ * <p>
+ * Entries are keyed on the {@link CorpusVersion} they were computed against, so re-ingestion
+ * invalidates them all at once; the map is also emptied the first time a new version is seen
+ * to release the stale entries. The retrieved documents are kept whole (content, metadata,
+ * score) so a hit skips both the query embedding and the database round trip.
+ */
+@Component
+public class RetrievalCache {
+
+    private final CorpusVersion corpusVersion;
+    private final LruCache<Key, List<Document>> cache;
+    private volatile long lastSeenVersion;
+
+    public RetrievalCache(CorpusVersion corpusVersion, CacheProperties properties) {
+        this.corpusVersion = corpusVersion;
+        this.cache = new LruCache<>(properties.retrievalSize());
+        this.lastSeenVersion = corpusVersion.current();
+    }
+
+    /**
+     * @param request the search to run
+     * @param tuning  anything besides the request that changes the result (e.g. ef_search)
+     * @param search  runs the search on a miss
+     */
+    public List<Document> get(SearchRequest request, Object tuning, Supplier<List<Document>> search) {
+        long version = corpusVersion.current();
+        if (version != lastSeenVersion) {
+            cache.clear();
+            lastSeenVersion = version;
+        }
+        Key key = new Key(version, normalize(request.getQuery()), request.getTopK(),
+                request.getSimilarityThreshold(), String.valueOf(request.getFilterExpression()), tuning);
+        return cache.get(key, k -> List.copyOf(search.get()));
+    }
+
+    public LruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    static String normalize(String question) {
+        return question.toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .replaceAll("[\\s?!.]+$", "")
+                .trim();
+    }
+
+    private record Key(long version, String question, int topK, double threshold, String filter, Object tuning) {
+    }
+}
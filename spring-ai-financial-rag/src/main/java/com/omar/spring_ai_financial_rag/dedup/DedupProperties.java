@@ -0,0 +1,30 @@
+package com.omar.spring_ai_financial_rag.dedup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Near-duplicate chunk elimination settings.
+ * <p>
+ * Usage in application.yaml:
+ *   financial-rag:
+ *     dedup:
+ *       enabled: true
+ *       threshold: 0.8
+ *       shingle-size: 3
+ *       bands: 16
+ *       rows: 8
+ *
+ * @param enabled     whether chunks are deduplicated before embedding
+ * @param threshold   Jaccard similarity at or above which a chunk counts as a duplicate
+ * @param shingleSize words per shingle
+ * @param bands       LSH bands; bands * rows MinHash values are computed per chunk
+ * @param rows        MinHash values per band; with 16 x 8 pairs around 0.7 similarity start to collide
+ */
+@ConfigurationProperties("financial-rag.dedup")
+public record DedupProperties(@DefaultValue("true") boolean enabled,
+                              @DefaultValue("0.8") double threshold,
+                              @DefaultValue("3") int shingleSize,
+                              @DefaultValue("16") int bands,
+                              @DefaultValue("8") int rows) {
+}
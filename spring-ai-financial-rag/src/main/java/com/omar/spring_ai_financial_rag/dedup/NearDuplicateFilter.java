@@ -0,0 +1,176 @@
+package com.omar.spring_ai_financial_rag.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Drops chunks that are near-duplicates of an earlier chunk, before they are embedded.
+ * <p>
+ * Each chunk is reduced to a set of word shingles and a MinHash signature. Signatures are
+ * split into LSH bands, so only chunks sharing at least one band are compared, and candidates
+ * are confirmed with the exact Jaccard similarity of their shingle sets. The first occurrence
+ * is kept, which for repeated headers, footers and disclaimers is the earliest page.
+ */
+@Component
+public class NearDuplicateFilter implements DocumentTransformer {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateFilter.class);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final DedupProperties properties;
+    private final long[] seedsA;
+    private final long[] seedsB;
+
+    public NearDuplicateFilter(DedupProperties properties) {
+        this.properties = properties;
+        int hashes = properties.bands() * properties.rows();
+        this.seedsA = new long[hashes];
+        this.seedsB = new long[hashes];
+        Random random = new Random(42);
+        for (int i = 0; i < hashes; i++) {
+            seedsA[i] = random.nextLong() | 1;
+            seedsB[i] = random.nextLong();
+        }
+    }
+
+    @Override
+    public List<Document> apply(List<Document> documents) {
+        if (!properties.enabled()) {
+            return documents;
+        }
+        Result result = deduplicate(documents);
+        result.removedPerSource().forEach((source, removed) ->
+                log.info("Dropped {} near-duplicate chunks from {}", removed, source));
+        log.info("Deduplication kept {} of {} chunks", result.kept().size(), documents.size());
+        return result.kept();
+    }
+
+    public Result deduplicate(List<Document> documents) {
+        List<Document> kept = new ArrayList<>(documents.size());
+        List<Set<Long>> keptShingles = new ArrayList<>(documents.size());
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        Map<String, Integer> removedPerSource = new LinkedHashMap<>();
+
+        for (Document document : documents) {
+            Set<Long> shingles = shingles(document.getText());
+            long[] bandKeys = bandKeys(signature(shingles));
+
+            Set<Integer> candidates = new HashSet<>();
+            for (long bandKey : bandKeys) {
+                candidates.addAll(buckets.getOrDefault(bandKey, List.of()));
+            }
+            boolean duplicate = candidates.stream()
+                    .anyMatch(i -> jaccard(shingles, keptShingles.get(i)) >= properties.threshold());
+
+            if (duplicate) {
+                removedPerSource.merge(source(document), 1, Integer::sum);
+                continue;
+            }
+            int index = kept.size();
+            kept.add(document);
+            keptShingles.add(shingles);
+            for (long bandKey : bandKeys) {
+                buckets.computeIfAbsent(bandKey, k -> new ArrayList<>()).add(index);
+            }
+        }
+        return new Result(kept, removedPerSource);
+    }
+
+    Set<Long> shingles(String text) {
+        String[] words = text == null ? new String[0]
+                : text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim().split(" ");
+        Set<Long> shingles = new HashSet<>();
+        int size = Math.min(properties.shingleSize(), words.length);
+        for (int i = 0; i + size <= words.length; i++) {
+            long hash = FNV_OFFSET;
+            for (int w = i; w < i + size; w++) {
+                hash = fnv(hash, words[w]);
+                hash = (hash ^ ' ') * FNV_PRIME;
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    private long[] signature(Set<Long> shingles) {
+        long[] signature = new long[seedsA.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < signature.length; i++) {
+                long hash = mix(seedsA[i] * shingle + seedsB[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[properties.bands()];
+        for (int band = 0; band < keys.length; band++) {
+            long hash = FNV_OFFSET ^ band;
+            for (int row = 0; row < properties.rows(); row++) {
+                hash = (hash ^ signature[band * properties.rows() + row]) * FNV_PRIME;
+            }
+            keys[band] = hash;
+        }
+        return keys;
+    }
+
+    static double jaccard(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        long intersection = smaller.stream().filter(larger::contains).count();
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private static String source(Document document) {
+        Object fileName = document.getMetadata().get("file_name");
+        return fileName != null ? fileName.toString() : "unknown";
+    }
+
+    private static long fnv(long hash, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            hash = (hash ^ word.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // splitmix64 finalizer, spreads the linear hash over all bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param kept             chunks to embed, in their original order
+     * @param removedPerSource dropped chunk count per source file
+     */
+    public record Result(List<Document> kept, Map<String, Integer> removedPerSource) {
+
+        public int removed() {
+            return removedPerSource.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/index")
+public class IndexController {
+
+    private final VectorIndexManager indexManager;
+    private final IndexRecallReport recallReport;
+
+    public IndexController(VectorIndexManager indexManager, IndexRecallReport recallReport) {
+        this.indexManager = indexManager;
+        this.recallReport = recallReport;
+    }
+
+    @GetMapping("/report")
+    public IndexRecallReport.Report report(@RequestParam(defaultValue = "4") int k,
+                                           @RequestParam(defaultValue = "50") int samples,
+                                           @RequestParam(required = false) int[] settings) {
+        return recallReport.run(k, samples, settings);
+    }
+
+    @PostMapping("/rebuild")
+    public String rebuild() {
+        indexManager.rebuild();
+        return indexManager.definition();
+    }
+}
@@ -0,0 +1,135 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures recall@k and latency of the ANN index against exact search on the ingested corpus.
+ * <p>
+ * Query vectors are sampled from the stored embeddings themselves, so the report costs no
+ * embedding calls. Exact results come from the same query with index scans disabled.
+ */
+@Component
+public class IndexRecallReport {
+
+    private static final int[] HNSW_EF_SEARCH = {10, 20, 40, 80, 160};
+    private static final int[] IVFFLAT_PROBES = {1, 2, 4, 8, 16};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VectorIndexManager indexManager;
+    private final VectorSearchTuner tuner;
+
+    public IndexRecallReport(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             VectorIndexManager indexManager, VectorSearchTuner tuner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.indexManager = indexManager;
+        this.tuner = tuner;
+    }
+
+    static final int MAX_K = 100;
+    static final int MAX_SAMPLES = 500;
+    static final int MAX_SETTINGS = 20;
+
+    /**
+     * Runs {@code samples} exact queries plus {@code samples} per setting, one after another.
+     *
+     * @throws InvalidSearchTuningException if {@code k}, {@code samples} or the number of settings
+     *                                      is out of range (400 when it came from a request)
+     */
+    public Report run(int k, int samples, int[] settings) {
+        if (k < 1 || k > MAX_K) {
+            throw new InvalidSearchTuningException("k must be between 1 and " + MAX_K);
+        }
+        if (samples < 1 || samples > MAX_SAMPLES) {
+            throw new InvalidSearchTuningException("samples must be between 1 and " + MAX_SAMPLES);
+        }
+        if (settings != null && settings.length > MAX_SETTINGS) {
+            throw new InvalidSearchTuningException("At most " + MAX_SETTINGS + " settings per report");
+        }
+        if (settings == null || settings.length == 0) {
+            settings = indexManager.type() == PgIndexType.IVFFLAT ? IVFFLAT_PROBES : HNSW_EF_SEARCH;
+        }
+        List<String> queries = jdbcTemplate.queryForList(
+                "SELECT embedding::text FROM " + indexManager.table() + " ORDER BY random() LIMIT ?",
+                String.class, samples);
+
+        List<Set<String>> exact = new ArrayList<>(queries.size());
+        long[] exactNanos = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            long started = System.nanoTime();
+            exact.add(transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL enable_indexscan = off");
+                return nearest(query, k);
+            }));
+            exactNanos[i] = System.nanoTime() - started;
+        }
+
+        List<Point> points = new ArrayList<>(settings.length);
+        for (int setting : settings) {
+            SearchTuning tuning = indexManager.type() == PgIndexType.IVFFLAT
+                    ? tuner.defaultTuning().with(null, setting)
+                    : tuner.defaultTuning().with(setting, null);
+            long[] nanos = new long[queries.size()];
+            double recall = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                String query = queries.get(i);
+                long started = System.nanoTime();
+                Set<String> approx = tuner.withTuning(tuning, () -> nearest(query, k));
+                nanos[i] = System.nanoTime() - started;
+                Set<String> hits = new HashSet<>(approx);
+                hits.retainAll(exact.get(i));
+                recall += exact.get(i).isEmpty() ? 1.0 : (double) hits.size() / exact.get(i).size();
+            }
+            points.add(new Point(setting, queries.isEmpty() ? 0 : recall / queries.size(),
+                    meanMillis(nanos), p95Millis(nanos)));
+        }
+
+        return new Report(indexManager.type(), indexManager.definition(), indexManager.rowCount(),
+                k, queries.size(), meanMillis(exactNanos), p95Millis(exactNanos), points);
+    }
+
+    private Set<String> nearest(String vector, int k) {
+        String sql = "SELECT id::text FROM " + indexManager.table()
+                + " ORDER BY embedding " + indexManager.distanceType().operator + " ?::vector LIMIT ?";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class, vector, k));
+    }
+
+    private static double meanMillis(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000_000;
+    }
+
+    private static double p95Millis(long[] nanos) {
+        if (nanos.length == 0) {
+            return 0;
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1] / 1_000_000.0;
+    }
+
+    /**
+     * @param setting    ef_search (HNSW) or probes (IVFFlat) used for the run
+     * @param recall     mean fraction of the exact top-k found by the index
+     * @param meanMillis mean query latency
+     * @param p95Millis  95th percentile query latency
+     */
+    public record Point(int setting, double recall, double meanMillis, double p95Millis) {
+    }
+
+    public record Report(PgIndexType indexType, String indexDefinition, long rows, int k, int samples,
+                         double exactMeanMillis, double exactP95Millis, List<Point> points) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Out-of-range {@link SearchTuning} or {@link IndexRecallReport} value. Raised from a request
+ * parameter it is answered with 400 Bad Request instead of a server error.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSearchTuningException extends IllegalArgumentException {
+
+    public InvalidSearchTuningException(String message) {
+        super(message);
+    }
+}
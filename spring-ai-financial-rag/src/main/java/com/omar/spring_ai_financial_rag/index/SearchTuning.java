@@ -0,0 +1,39 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Per-query pgvector search knobs, applied with {@code SET LOCAL} so they only live for the
+ * surrounding transaction and never leak to other users of the pooled connection.
+ *
+ * @param efSearch HNSW candidate list size (higher = better recall, slower)
+ * @param probes   IVFFlat lists scanned (higher = better recall, slower)
+ * @throws InvalidSearchTuningException if a value is out of range (400 when it came from a request)
+ */
+public record SearchTuning(int efSearch, int probes) {
+
+    public SearchTuning {
+        if (efSearch < 1 || efSearch > 1000) {
+            throw new InvalidSearchTuningException("efSearch must be between 1 and 1000");
+        }
+        if (probes < 1) {
+            throw new InvalidSearchTuningException("probes must be positive");
+        }
+    }
+
+    /**
+     * Returns a copy with the non-null overrides applied.
+     */
+    public SearchTuning with(Integer efSearch, Integer probes) {
+        return new SearchTuning(efSearch != null ? efSearch : this.efSearch,
+                probes != null ? probes : this.probes);
+    }
+
+    /**
+     * Must run inside a transaction, otherwise {@code SET LOCAL} is a no-op.
+     */
+    void apply(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " + efSearch);
+        jdbcTemplate.execute("SET LOCAL ivfflat.probes = " + probes);
+    }
+}
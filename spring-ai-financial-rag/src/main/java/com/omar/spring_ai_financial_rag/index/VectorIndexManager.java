@@ -0,0 +1,95 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the ANN index on the pgvector table.
+ * <p>
+ * The starter's own index creation is disabled ({@code index-type: NONE}) so the build
+ * parameters come from {@link VectorIndexProperties}. The index is rebuilt after ingestion:
+ * IVFFlat clusters are trained on the rows present at build time, so building it on an
+ * empty table gives useless lists.
+ */
+@Component
+public class VectorIndexManager {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexManager.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VectorIndexProperties index;
+    private final String table;
+    private final PgDistanceType distanceType;
+
+    public VectorIndexManager(JdbcTemplate jdbcTemplate, VectorIndexProperties index,
+                              PgVectorStoreProperties store) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.index = index;
+        this.table = store.getSchemaName() + "." + store.getTableName();
+        this.distanceType = store.getDistanceType();
+    }
+
+    public void rebuild() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + indexName());
+        if (index.type() == PgIndexType.NONE) {
+            log.info("Vector index disabled, searches on {} are exact scans", table);
+            return;
+        }
+        long started = System.nanoTime();
+        String ddl = createStatement(rowCount());
+        jdbcTemplate.execute(ddl);
+        log.info("Built vector index in {} ms: {}", (System.nanoTime() - started) / 1_000_000, ddl);
+    }
+
+    public String definition() {
+        return jdbcTemplate.query("SELECT indexdef FROM pg_indexes WHERE schemaname || '.' || indexname = ?",
+                        (rs, i) -> rs.getString(1), indexName())
+                .stream().findFirst().orElse("none");
+    }
+
+    public long rowCount() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        return rows == null ? 0 : rows;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public PgDistanceType distanceType() {
+        return distanceType;
+    }
+
+    public PgIndexType type() {
+        return index.type();
+    }
+
+    private String indexName() {
+        return table.substring(0, table.indexOf('.') + 1) + PgVectorStore.DEFAULT_VECTOR_INDEX_NAME;
+    }
+
+    private String createStatement(long rows) {
+        String head = "CREATE INDEX " + PgVectorStore.DEFAULT_VECTOR_INDEX_NAME + " ON " + table;
+        return switch (index.type()) {
+            case HNSW -> head + " USING hnsw (embedding " + distanceType.index + ")"
+                    + " WITH (m = " + index.m() + ", ef_construction = " + index.efConstruction() + ")";
+            case IVFFLAT -> head + " USING ivfflat (embedding " + distanceType.index + ")"
+                    + " WITH (lists = " + lists(rows) + ")";
+            case NONE -> throw new IllegalStateException("No index to create");
+        };
+    }
+
+    // pgvector guidance: rows / 1000 lists up to 1M rows
+    private int lists(long rows) {
+        if (index.lists() > 0) {
+            return index.lists();
+        }
+        return (int) Math.max(1, rows / 1000);
+    }
+}
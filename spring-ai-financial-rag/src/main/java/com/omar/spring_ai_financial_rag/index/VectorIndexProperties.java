@@ -0,0 +1,38 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Index build and search settings for the pgvector table.
+ * <p>
+ * Usage in application.yaml:
+ *   financial-rag:
+ *     index:
+ *       type: HNSW
+ *       m: 16
+ *       ef-construction: 64
+ *       lists: 100
+ *       ef-search: 40
+ *       probes: 1
+ *
+ * @param type           index to build after ingestion (HNSW, IVFFLAT or NONE for exact scans)
+ * @param m              HNSW: max connections per graph node
+ * @param efConstruction HNSW: candidate list size while building the graph
+ * @param lists          IVFFlat: number of inverted lists; 0 derives rows / 1000 (min 1)
+ * @param efSearch       HNSW: default candidate list size per query
+ * @param probes         IVFFlat: default number of lists scanned per query
+ */
+@ConfigurationProperties("financial-rag.index")
+public record VectorIndexProperties(@DefaultValue("HNSW") PgIndexType type,
+                                    @DefaultValue("16") int m,
+                                    @DefaultValue("64") int efConstruction,
+                                    @DefaultValue("0") int lists,
+                                    @DefaultValue("40") int efSearch,
+                                    @DefaultValue("1") int probes) {
+
+    public SearchTuning defaultTuning() {
+        return new SearchTuning(efSearch, probes);
+    }
+}
@@ -0,0 +1,111 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import com.omar.spring_ai_financial_rag.cache.RetrievalCache;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands out {@link VectorStore} views whose similarity searches run with a given
+ * {@link SearchTuning}.
+ * <p>
+ * The search runs in a short read-only transaction: the {@code SET LOCAL} statements and the
+ * store's own query share the transaction-bound connection, and the settings are discarded
+ * on commit. Results are served from the {@link RetrievalCache} when possible. Writes and
+ * deletes go straight to the underlying store.
+ */
+@Component
+public class VectorSearchTuner {
+
+    private final VectorStore vectorStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SearchTuning defaultTuning;
+    private final RetrievalCache retrievalCache;
+
+    public VectorSearchTuner(VectorStore vectorStore, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager, VectorIndexProperties properties,
+                             RetrievalCache retrievalCache) {
+        this.vectorStore = vectorStore;
+        this.retrievalCache = retrievalCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.defaultTuning = properties.defaultTuning();
+    }
+
+    public SearchTuning defaultTuning() {
+        return defaultTuning;
+    }
+
+    public VectorStore tuned(SearchTuning tuning) {
+        return tuned(tuning, documents -> {
+        });
+    }
+
+    /**
+     * Same as {@link #tuned(SearchTuning)}, additionally handing every search result to
+     * {@code onResults} as soon as the search returns, before the advisor builds the prompt.
+     */
+    public VectorStore tuned(SearchTuning tuning, Consumer<List<Document>> onResults) {
+        return new TunedVectorStore(tuning, onResults);
+    }
+
+    /**
+     * Runs an arbitrary query with the given tuning applied, used by the recall report.
+     */
+    public <T> T withTuning(SearchTuning tuning, Supplier<T> query) {
+        return transactionTemplate.execute(status -> {
+            tuning.apply(jdbcTemplate);
+            return query.get();
+        });
+    }
+
+    private final class TunedVectorStore implements VectorStore {
+
+        private final SearchTuning tuning;
+        private final Consumer<List<Document>> onResults;
+
+        private TunedVectorStore(SearchTuning tuning, Consumer<List<Document>> onResults) {
+            this.tuning = tuning;
+            this.onResults = onResults;
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            List<Document> documents = retrievalCache.get(request, tuning,
+                    () -> withTuning(tuning, () -> vectorStore.similaritySearch(request)));
+            onResults.accept(documents);
+            return documents;
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            vectorStore.add(documents);
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            vectorStore.delete(idList);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            vectorStore.delete(filterExpression);
+        }
+
+        @Override
+        public String getName() {
+            return vectorStore.getName();
+        }
+    }
+}
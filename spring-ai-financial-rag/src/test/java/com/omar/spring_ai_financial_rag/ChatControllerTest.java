@@ -0,0 +1,69 @@
+package com.omar.spring_ai_financial_rag;
+
+import com.omar.spring_ai_financial_rag.index.SearchTuning;
+import com.omar.spring_ai_financial_rag.index.VectorSearchTuner;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ChatControllerTest {
+
+    private final ChatModel chatModel = mock(ChatModel.class);
+    private final VectorSearchTuner searchTuner = mock(VectorSearchTuner.class);
+    private final ChatController controller = new ChatController(ChatClient.builder(chatModel), searchTuner);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+    @Test
+    void streamSendsSourcesBeforeTheAnswerTokens() {
+        var tuning = new SearchTuning(40, 1);
+        when(searchTuner.defaultTuning()).thenReturn(tuning);
+        var chunk = new Document("rate-cut", "The Fed cut rates by 25 basis points.", Map.of("page_number", 3));
+        when(searchTuner.tuned(eq(tuning), any())).thenAnswer(invocation -> {
+            Consumer<List<Document>> onResults = invocation.getArgument(1);
+            VectorStore vectorStore = mock(VectorStore.class);
+            when(vectorStore.similaritySearch(any(SearchRequest.class))).thenAnswer(search -> {
+                onResults.accept(List.of(chunk));
+                return List.of(chunk);
+            });
+            return vectorStore;
+        });
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just("Equities ", "rallied.")
+                .map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token))))));
+
+        var events = controller.stream("What did the rate cut do?", null, null).collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("sources", "token", "token");
+        assertThat(events.get(0).data()).isEqualTo(List.of(new ChatController.Source("rate-cut", 3, null)));
+    }
+
+    @Test
+    void invalidSearchTuningIsABadRequest() throws Exception {
+        when(searchTuner.defaultTuning()).thenReturn(new SearchTuning(40, 1));
+
+        mockMvc.perform(get("/").param("efSearch", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/stream").param("probes", "-1")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,56 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LruCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadsOnceAndCountsHitsAndMisses() {
+        var cache = new LruCache<String, String>(10);
+
+        assertThat(cache.get("a", this::load)).isEqualTo("A");
+        assertThat(cache.get("a", this::load)).isEqualTo("A");
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats()).isEqualTo(new LruCache.Stats(1, 1, 1));
+        assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        var cache = new LruCache<String, String>(2);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+
+        cache.get("c", this::load);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+
+        assertThat(loads).hasValue(4);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void nullValuesAreNotCachedAndClearEmptiesTheCache() {
+        var cache = new LruCache<String, String>(10);
+        cache.get("a", key -> null);
+        cache.get("b", this::load);
+
+        cache.clear();
+
+        assertThat(cache.stats().size()).isZero();
+        assertThat(cache.stats().hitRate()).isZero();
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return key.toUpperCase();
+    }
+}
@@ -0,0 +1,48 @@
+package com.omar.spring_ai_financial_rag.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrievalCacheTest {
+
+    private final CorpusVersion corpusVersion = new CorpusVersion();
+    private final RetrievalCache cache = new RetrievalCache(corpusVersion, new CacheProperties(10, 10));
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    void normalizesCaseSpacingAndTrailingPunctuation() {
+        assertThat(RetrievalCache.normalize("  How did the  Fed cut\timpact bonds?! "))
+                .isEqualTo("how did the fed cut impact bonds");
+        assertThat(RetrievalCache.normalize("What is the U.S. outlook?")).isEqualTo("what is the u.s. outlook");
+    }
+
+    @Test
+    void sameQuestionIsServedFromCacheUntilTheCorpusChanges() {
+        assertThat(search("How did the Fed cut impact bonds?", 4, "40")).hasSize(1);
+        search("how did the fed cut impact bonds", 4, "40");
+        assertThat(searches).hasValue(1);
+
+        search("how did the fed cut impact bonds", 8, "40");
+        search("how did the fed cut impact bonds", 4, "200");
+        assertThat(searches).hasValue(3);
+
+        assertThat(corpusVersion.increment()).isEqualTo(1);
+        assertThat(corpusVersion.current()).isEqualTo(1);
+        search("How did the Fed cut impact bonds?", 4, "40");
+        assertThat(searches).hasValue(4);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    private List<Document> search(String question, int topK, Object tuning) {
+        return cache.get(SearchRequest.builder().query(question).topK(topK).build(), tuning, () -> {
+            searches.incrementAndGet();
+            return List.of(new Document("chunk " + searches.get()));
+        });
+    }
+}
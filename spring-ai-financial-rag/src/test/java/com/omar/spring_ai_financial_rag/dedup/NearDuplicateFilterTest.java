@@ -0,0 +1,62 @@
+package com.omar.spring_ai_financial_rag.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearDuplicateFilterTest {
+
+    private static final String DISCLAIMER = """
+            This material is for informational purposes only and does not constitute investment advice.
+            Past performance is not a guarantee of future results. Investing involves risk, including the
+            possible loss of principal. Please consult your financial advisor before making any decision.""";
+
+    private final NearDuplicateFilter filter = new NearDuplicateFilter(new DedupProperties(true, 0.8, 3, 16, 8));
+
+    @Test
+    void dropsRepeatedDisclaimersAndKeepsFirstOccurrence() {
+        Document first = chunk(DISCLAIMER + " Page 1", 1);
+        Document repeated = chunk(DISCLAIMER + " Page 2", 2);
+        Document content = chunk("The Federal Reserve cut rates by 25 basis points, lifting equities and "
+                + "compressing credit spreads while the dollar weakened against major currencies.", 2);
+
+        NearDuplicateFilter.Result result = filter.deduplicate(List.of(first, repeated, content));
+
+        assertThat(result.kept()).containsExactly(first, content);
+        assertThat(result.removedPerSource()).isEqualTo(Map.of("outlook.pdf", 1));
+        assertThat(result.removed()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsDistinctChunks() {
+        Document equities = chunk("Equities rallied on earnings strength across technology and financials.", 1);
+        Document bonds = chunk("Long duration bonds sold off as inflation expectations moved higher.", 1);
+
+        assertThat(filter.deduplicate(List.of(equities, bonds)).kept()).containsExactly(equities, bonds);
+    }
+
+    @Test
+    void passesEverythingThroughWhenDisabled() {
+        var disabled = new NearDuplicateFilter(new DedupProperties(false, 0.8, 3, 16, 8));
+        List<Document> chunks = List.of(chunk(DISCLAIMER, 1), chunk(DISCLAIMER, 2));
+
+        assertThat(disabled.apply(chunks)).isSameAs(chunks);
+    }
+
+    @Test
+    void jaccardOfShingleSets() {
+        var a = filter.shingles("one two three four");
+        var b = filter.shingles("one two three five");
+
+        // {one two three, two three four} vs {one two three, two three five}
+        assertThat(NearDuplicateFilter.jaccard(a, b)).isEqualTo(1.0 / 3);
+    }
+
+    private static Document chunk(String text, int page) {
+        return new Document(text, Map.of("file_name", "outlook.pdf", "page_number", page));
+    }
+}
@@ -0,0 +1,27 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class IndexRecallReportTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final IndexRecallReport report = new IndexRecallReport(jdbcTemplate, mock(PlatformTransactionManager.class),
+            mock(VectorIndexManager.class), mock(VectorSearchTuner.class));
+
+    @Test
+    void rejectsOutOfRangeParametersBeforeQuerying() {
+        assertThatThrownBy(() -> report.run(-1, 50, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> report.run(101, 50, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> report.run(4, 0, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> report.run(4, 501, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> report.run(4, 50, new int[21])).isInstanceOf(InvalidSearchTuningException.class);
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,25 @@
+package com.omar.spring_ai_financial_rag.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchTuningTest {
+
+    private final SearchTuning defaults = new SearchTuning(40, 1);
+
+    @Test
+    void overridesOnlyTheGivenValues() {
+        assertThat(defaults.with(null, null)).isEqualTo(defaults);
+        assertThat(defaults.with(200, null)).isEqualTo(new SearchTuning(200, 1));
+        assertThat(defaults.with(null, 10)).isEqualTo(new SearchTuning(40, 10));
+    }
+
+    @Test
+    void rejectsOutOfRangeValues() {
+        assertThatThrownBy(() -> defaults.with(0, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> defaults.with(1001, null)).isInstanceOf(InvalidSearchTuningException.class);
+        assertThatThrownBy(() -> defaults.with(null, 0)).isInstanceOf(InvalidSearchTuningException.class);
+    }
+}
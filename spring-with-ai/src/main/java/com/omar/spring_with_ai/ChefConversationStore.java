@@ -0,0 +1,167 @@
+package com.omar.spring_with_ai;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Per-session conversation history for {@link RecipeChefController}.
+ * <p>
+ * Each session keeps only its most recent messages, capped by count and by estimated tokens,
+ * so the prompt sent to the model stays flat however long the session runs. Sessions idle
+ * for longer than the configured timeout are dropped, and the least recently used ones go
+ * first when the store is full, so heap use stays bounded under load.
+ * <p>
+ * A turn holds its session's lock from reading the history to appending the answer, so
+ * concurrent requests of one session are applied in order while other sessions run in parallel.
+ * Sessions with a turn in flight or waiting are never evicted, so a request arriving meanwhile
+ * joins the same session instead of starting a new, empty one.
+ */
+@Component
+public class ChefConversationStore {
+
+    private final ChefSessionProperties properties;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public ChefConversationStore(ChefSessionProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Runs one turn of a session: {@code turn} gets the current history and returns the
+     * messages to append (the user message and the answer).
+     *
+     * @param sessionId Session the turn belongs to
+     * @param turn      Calls the model with the history
+     * @return Messages appended by the turn
+     */
+    public List<Message> exchange(String sessionId, Function<List<Message>, List<Message>> turn) {
+        // registered as in use under the map's per-key guard, which eviction checks under too
+        Session session = sessions.compute(sessionId, (id, existing) -> {
+            Session current = existing != null ? existing : new Session();
+            current.turns.incrementAndGet();
+            return current;
+        });
+        try {
+            if (sessions.size() > properties.maxSessions()) {
+                // evict a little below the bound so a full store does not sort on every new session
+                evict(properties.maxSessions() - properties.maxSessions() / 10);
+            }
+            session.lock.lock();
+            try {
+                session.touch();
+                List<Message> appended = turn.apply(List.copyOf(session.messages));
+                appended.forEach(message -> session.append(message, tokens(message)));
+                trim(session);
+                return appended;
+            }
+            finally {
+                session.lock.unlock();
+            }
+        }
+        finally {
+            session.touch();
+            session.turns.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param sessionId Session to look up
+     * @return Current history of the session, empty if unknown
+     */
+    public List<Message> history(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return List.of();
+        }
+        session.lock.lock();
+        try {
+            return List.copyOf(session.messages);
+        }
+        finally {
+            session.lock.unlock();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Drops idle sessions, then the least recently used ones above the size bound.
+     */
+    @Scheduled(fixedDelayString = "${recipes.chef.sweep-interval:1m}")
+    public void evict() {
+        evict(properties.maxSessions());
+    }
+
+    private void evict(int maxSessions) {
+        long idleBefore = System.nanoTime() - properties.idleTimeout().toNanos();
+        sessions.forEach((sessionId, session) -> {
+            if (session.lastAccess < idleBefore) {
+                evictIfIdle(sessionId);
+            }
+        });
+
+        int excess = sessions.size() - maxSessions;
+        if (excess > 0) {
+            sessions.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a.lastAccess, b.lastAccess)))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(this::evictIfIdle);
+        }
+    }
+
+    private void evictIfIdle(String sessionId) {
+        sessions.computeIfPresent(sessionId, (id, session) -> session.turns.get() > 0 ? session : null);
+    }
+
+    // Drops the oldest messages past the caps, never leaving an answer without its question.
+    private void trim(Session session) {
+        while (session.messages.size() > properties.maxMessages()
+                || (session.tokens > properties.maxTokens() && session.messages.size() > 1)
+                || (!session.messages.isEmpty() && session.messages.peekFirst() instanceof AssistantMessage)) {
+            Message dropped = session.messages.removeFirst();
+            session.tokens -= tokens(dropped);
+        }
+    }
+
+    private int tokens(Message message) {
+        return tokenCountEstimator.estimate(Objects.requireNonNullElse(message.getText(), ""));
+    }
+
+    private static final class Session {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<Message> messages = new ArrayDeque<>();
+        // turns running or waiting for the lock; a session in use is never evicted
+        private final AtomicInteger turns = new AtomicInteger();
+        private int tokens;
+        private volatile long lastAccess = System.nanoTime();
+
+        private void append(Message message, int messageTokens) {
+            messages.addLast(message);
+            tokens += messageTokens;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+}
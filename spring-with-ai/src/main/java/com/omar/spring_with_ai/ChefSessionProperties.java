@@ -0,0 +1,32 @@
+package com.omar.spring_with_ai;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the per-session conversations kept by {@link RecipeChefController}.
+ * <p>
+ * Usage in application.yaml:
+ *   recipes:
+ *     chef:
+ *       max-sessions: 10000
+ *       idle-timeout: 30m
+ *       max-messages: 20
+ *       max-tokens: 2000
+ *       sweep-interval: 1m
+ *
+ * @param maxSessions   Sessions kept before the least recently used ones are dropped
+ * @param idleTimeout   Idle time after which a session is dropped
+ * @param maxMessages   Most user/assistant messages kept per session (oldest dropped first)
+ * @param maxTokens     Most estimated tokens of history kept per session (oldest dropped first)
+ * @param sweepInterval Delay between two sweeps dropping idle and excess sessions
+ */
+@ConfigurationProperties("recipes.chef")
+public record ChefSessionProperties(@DefaultValue("10000") int maxSessions,
+                                    @DefaultValue("30m") Duration idleTimeout,
+                                    @DefaultValue("20") int maxMessages,
+                                    @DefaultValue("2000") int maxTokens,
+                                    @DefaultValue("1m") Duration sweepInterval) {
+}
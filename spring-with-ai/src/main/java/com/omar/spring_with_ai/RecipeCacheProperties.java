@@ -0,0 +1,23 @@
+package com.omar.spring_with_ai;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the {@link RecipeResponseCache} shared by the recipe endpoints.
+ * <p>
+ * Usage in application.yaml:
+ *   recipes:
+ *     cache:
+ *       ttl: 10m
+ *       max-entries: 1000
+ *
+ * @param ttl        How long a converted answer is served before the model is asked again
+ * @param maxEntries Answers kept before the least recently used ones are dropped
+ */
+@ConfigurationProperties("recipes.cache")
+public record RecipeCacheProperties(@DefaultValue("10m") Duration ttl,
+                                    @DefaultValue("1000") int maxEntries) {
+}
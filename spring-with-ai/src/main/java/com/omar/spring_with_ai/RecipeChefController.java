@@ -5,6 +5,10 @@ import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -12,6 +16,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * REST controller that interacts with an AI model to simulate
@@ -19,20 +24,31 @@ import java.util.List;
  * <p>
  * This controller maintains a conversation history (messages exchanged
  * between the user and the AI) to provide contextual and consistent answers.
- * The context persists across multiple requests because messages are stored
- * in a list inside the controller.
+ * Each caller gets its own conversation, identified by the {@code CHEF-SESSION}
+ * cookie and kept in the {@link ChefConversationStore}, which bounds how many
+ * sessions live in memory and how much history each one resends to the model.
  */
 @RestController
 @RequestMapping("/recipes/chef")
 public class RecipeChefController {
 
+    static final String SESSION_COOKIE = "CHEF-SESSION";
+
     private final ChatClient chatClient;
 
     /**
-     * Holds the history of the conversation: system, user, and assistant messages.
+     * Per-session history of user and assistant messages.
      * This makes the model maintain context between calls.
      */
-    private final List<Message> conversation;
+    private final ChefConversationStore conversations;
+
+    private final ChefSessionProperties properties;
+
+    /**
+     * System instruction that guides the model's behavior permanently.
+     * It is sent first on every call instead of being stored in each session.
+     */
+    private final SystemMessage systemMessage;
 
 
     /**
@@ -43,48 +59,61 @@ public class RecipeChefController {
      *  - AI should only suggest seafood recipes.
      *  - If asked about anything else, it should respond with "I don't know."
      */
-    public RecipeChefController(ChatClient.Builder chatClientBuilder) {
+    public RecipeChefController(ChatClient.Builder chatClientBuilder, ChefConversationStore conversations,
+                                ChefSessionProperties properties) {
         this.chatClient = chatClientBuilder.build();
-        this.conversation = new ArrayList<>();
+        this.conversations = conversations;
+        this.properties = properties;
         final String systemMessageString = """
         Suggest sea food recipe.
         If someone asks about something else, just say I don't know.
         """;
-        // Add system message as the first message in the conversation history.
-        final SystemMessage systemMessage = new SystemMessage(systemMessageString);
-        this.conversation.add(systemMessage);
-
+        this.systemMessage = new SystemMessage(systemMessageString);
     }
 
     /**
      * Endpoint: GET /recipes/chef/suggest-recipe
      * <p>
-     * Accepts a user message and sends it to the AI, along with the entire
-     * conversation history, so the model can reply with context awareness.
+     * Accepts a user message and sends it to the AI, along with the recent
+     * history of the caller's session, so the model can reply with context awareness.
      *
-     * @param message The user prompt. Defaults to "Suggest a recipe for dinner."
-     * @return The AI-generated response.
+     * @param message   The user prompt. Defaults to "Suggest a recipe for dinner."
+     * @param sessionId Session ID from the cookie (a new session is started if missing)
+     * @return The AI-generated response, with the session cookie.
      */
     @GetMapping("/suggest-recipe")
-    public String suggestRecipe(
+    public ResponseEntity<String> suggestRecipe(
             @RequestParam(
                     name = "message",
                     defaultValue = "Suggest a recipe for dinner"
-            ) String message
+            ) String message,
+            @CookieValue(name = SESSION_COOKIE, required = false) String sessionId
     ) {
-        // Add the new user message to the conversation history.
-        final Message userMessage = new UserMessage(message);
-        this.conversation.add(userMessage);
+        final String session = sessionId == null ? UUID.randomUUID().toString() : sessionId;
+
+        List<Message> appended = this.conversations.exchange(session, history -> {
+            // System instruction, then the session's recent history, then the new user message.
+            final Message userMessage = new UserMessage(message);
+            List<Message> prompt = new ArrayList<>(history.size() + 2);
+            prompt.add(this.systemMessage);
+            prompt.addAll(history);
+            prompt.add(userMessage);
+
+            String modelResponse = this.chatClient.prompt()
+                    .messages(prompt)
+                    .call()
+                    .content();
 
-        // Send the full conversation to the model to generate a contextual reply.
-        String modelResponse = this.chatClient.prompt()
-                .messages(this.conversation)
-                .call()
-                .content();
+            // Both messages are added to the session for continuity.
+            return List.of(userMessage, new AssistantMessage(modelResponse));
+        });
 
-        // Add the assistant's response back into the conversation for continuity.
-        final Message assistantMessage = new AssistantMessage(modelResponse);
-        this.conversation.add(assistantMessage);
-        return modelResponse;
+        ResponseCookie cookie = ResponseCookie.from(SESSION_COOKIE, session)
+                .path("/recipes/chef")
+                .maxAge(this.properties.idleTimeout())
+                .build();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, cookie.toString())
+                .body(appended.getLast().getText());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.omar.spring_with_ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing plus a bounded TTL cache for the ingredient-keyed structured recipe
+ * endpoints. Free-form prompts are not cached: two people typing the same sentence do not
+ * necessarily want the same answer for the next ten minutes.
+ * <p>
+ * Answers are keyed on (endpoint, normalized ingredient): case and extra whitespace do not
+ * create new keys, so "Shrimp" and " shrimp " share one entry.
+ * <p>
+ * For each key:
+ * - A cached answer younger than the TTL is returned without calling the model
+ * - Otherwise the first request calls the model; identical requests arriving while that call
+ *   is in flight wait for it and share its result instead of making their own call
+ * - Failures (including errors) are not cached; every waiting request gets the same exception
+ * <p>
+ * Metrics: {@code recipes.cache.requests} tagged with {@code endpoint} and
+ * {@code result} = {@code hit} (served from cache), {@code coalesced} (shared an in-flight
+ * call) or {@code miss} (called the model). Hits plus coalesced are the deduplicated calls.
+ */
+@Component
+public class RecipeResponseCache {
+
+    private final RecipeCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Key, Cached> cache;
+
+    public RecipeResponseCache(RecipeCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    /**
+     * @param endpoint  Endpoint the answer belongs to
+     * @param parameter Request parameter (ingredient), normalized for the key
+     * @param call      Calls the model and converts the answer
+     * @return Cached, shared or freshly computed answer
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String endpoint, String parameter, Supplier<T> call) {
+        Key key = new Key(endpoint, normalize(parameter));
+        Object cached = cached(key);
+        if (cached != null) {
+            count(endpoint, "hit");
+            return (T) cached;
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            count(endpoint, "coalesced");
+            return (T) join(leader);
+        }
+        try {
+            // a flight may have completed between the cache check and taking the lead
+            Object value = cached(key);
+            if (value != null) {
+                count(endpoint, "hit");
+            }
+            else {
+                count(endpoint, "miss");
+                value = call.get();
+                put(endpoint, parameter, value);
+            }
+            flight.complete(value);
+            return (T) value;
+        }
+        catch (RuntimeException | Error ex) {
+            // followers would otherwise wait forever on a flight that never completes
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return Cached answer for the endpoint and parameter, or {@code null}; never calls the model
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(String endpoint, String parameter) {
+        Object cached = cached(new Key(endpoint, normalize(parameter)));
+        if (cached != null) {
+            count(endpoint, "hit");
+        }
+        return (T) cached;
+    }
+
+    /**
+     * Caches an answer obtained elsewhere (e.g. from a batch call) for later single requests.
+     */
+    public void put(String endpoint, String parameter, Object value) {
+        synchronized (cache) {
+            cache.put(new Key(endpoint, normalize(parameter)),
+                    new Cached(value, System.nanoTime() + properties.ttl().toNanos()));
+        }
+    }
+
+    private Object cached(Key key) {
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt - System.nanoTime() < 0) {
+                cache.remove(key);
+                return null;
+            }
+            return cached.value;
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void count(String endpoint, String result) {
+        Counter.builder("recipes.cache.requests")
+                .description("Recipe requests by cache outcome; hit and coalesced requests skipped the model")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return Parameter as used in cache keys: trimmed, single-spaced, lower case
+     */
+    public static String normalize(String parameter) {
+        return parameter.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String endpoint, String parameter) {
+    }
+
+    private record Cached(Object value, long expiresAt) {
+    }
+}
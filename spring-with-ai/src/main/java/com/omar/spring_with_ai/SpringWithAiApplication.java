@@ -1,8 +1,14 @@
 package com.omar.spring_with_ai;
 
+import com.omar.spring_with_ai.output.RecipeBatchProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
+@EnableConfigurationProperties({ChefSessionProperties.class, RecipeCacheProperties.class,
+		RecipeBatchProperties.class})
 @SpringBootApplication
 public class SpringWithAiApplication {
 
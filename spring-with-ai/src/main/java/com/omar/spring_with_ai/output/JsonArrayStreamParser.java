@@ -0,0 +1,100 @@
+package com.omar.spring_with_ai.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental splitter for a streamed JSON array of objects.
+ * <p>
+ * Text chunks (model tokens) are fed as they arrive; every time an object directly inside the
+ * top-level array closes, its JSON text is returned, so each element can be parsed and sent
+ * before the rest of the array has been generated. Anything before the opening {@code [}
+ * (such as a Markdown code fence) and after the closing {@code ]} is ignored; a {@code [} only
+ * opens the array when the next non-blank character opens an object or is {@code ]}, so
+ * bracketed prose before it is skipped too.
+ * <p>
+ * Only tracks nesting and string state, it does not validate the JSON; elements are parsed
+ * by the output converter afterwards. Not thread-safe: use one instance per stream.
+ */
+public class JsonArrayStreamParser {
+
+    private final StringBuilder element = new StringBuilder();
+
+    // 0 = before the array, 1 = inside the array, 2+ = inside an element
+    private int depth;
+    // a '[' was seen before the array; it only opens the array if '{' or ']' follows
+    private boolean opening;
+    private boolean inString;
+    private boolean escaped;
+    private boolean done;
+
+    /**
+     * @param chunk Next piece of the streamed text
+     * @return JSON text of every element completed by this chunk, in order
+     */
+    public List<String> feed(String chunk) {
+        List<String> completed = new ArrayList<>(1);
+        for (int i = 0; i < chunk.length() && !done; i++) {
+            char c = chunk.charAt(i);
+            if (opening) {
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                opening = false;
+                if (c == ']') {
+                    done = true;
+                    continue;
+                }
+                if (c == '{') {
+                    depth = 1;
+                }
+            }
+            if (depth >= 2) {
+                element.append(c);
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                }
+                else if (c == '\\') {
+                    escaped = true;
+                }
+                else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = depth >= 1;
+                case '[', '{' -> {
+                    if (depth == 0) {
+                        // prose such as "Here are [3] recipes" must not start the array
+                        opening = c == '[';
+                        continue;
+                    }
+                    if (depth == 1) {
+                        element.setLength(0);
+                        element.append(c);
+                    }
+                    depth++;
+                }
+                case ']', '}' -> {
+                    if (depth == 0) {
+                        continue;
+                    }
+                    depth--;
+                    if (depth == 1) {
+                        completed.add(element.toString());
+                        element.setLength(0);
+                    }
+                    else if (depth == 0) {
+                        done = true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return completed;
+    }
+}
@@ -0,0 +1,24 @@
+package com.omar.spring_with_ai.output;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Limits of the multi-ingredient batch endpoint of {@link RecipeSuggesterController}.
+ * <p>
+ * Usage in application.yaml:
+ *   recipes:
+ *     batch:
+ *       max-ingredients-per-call: 20
+ *       max-ingredients: 500
+ *
+ * @param maxIngredientsPerCall Ingredients packed into one model call (at least 1); larger batches are split
+ * @param maxIngredients        Most ingredients accepted by one request (at least 1)
+ */
+@Validated
+@ConfigurationProperties("recipes.batch")
+public record RecipeBatchProperties(@DefaultValue("20") @Min(1) int maxIngredientsPerCall,
+                                    @DefaultValue("500") @Min(1) int maxIngredients) {
+}
@@ -0,0 +1,139 @@
+package com.omar.spring_with_ai.output;
+
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.converter.ListOutputConverter;
+import org.springframework.ai.converter.MapOutputConverter;
+import org.springframework.ai.converter.StructuredOutputConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Output converters and prompts of {@link RecipeSuggesterController}, built once at startup.
+ * <p>
+ * Creating a {@code BeanOutputConverter} generates a JSON schema for its target type by
+ * reflection, and a {@code PromptTemplate} is parsed again on every render. Doing both per
+ * request is pure overhead: the converters are stateless once built, and the prompts only
+ * differ by the ingredient. Each endpoint therefore gets one {@link Prepared} holding its
+ * converter and a {@link CompiledTemplate} with the format instructions already folded in.
+ * A template leaving anything but its ingredient placeholder open fails bean creation.
+ */
+@Component
+public class RecipeOutputRegistry {
+
+    static final String INGREDIENT = "ingredient";
+
+    static final String DISHES = """
+            Please suggest me the best 10 dishes containing the ingredient {ingredient}.
+            Just say "I don't know" if you don't know the answer.
+            {format}
+            """;
+
+    static final String DISHES_BY_COUNTRY = """
+            Please suggest me the best dishes containing the ingredient {ingredient}.
+            Include the country of origin as a key and the dish name as a value.
+            Just say "I don't know" if you don't know the answer.
+            {format}
+            """;
+
+    static final String BEST_RECIPE = """
+            Please suggest me the best dish containing the ingredient {ingredient}.
+            Include dish name, country of origin, and the number of calories in that dish.
+            Just say "I don't know" if you don't know the answer.
+            {format}
+            """;
+
+    static final String BEST_RECIPES = """
+            Please suggest me the best 10 dishes containing the ingredient {ingredient}.
+            Include dish name, country of origin, and the number of calories in that dish.
+            Just say "I don't know" if you don't know the answer.
+            {format}
+            """;
+
+    static final String INGREDIENTS = "ingredients";
+
+    static final String BEST_RECIPE_BATCH = """
+            For each of the following ingredients, suggest me the best dish containing that ingredient.
+            Include dish name, country of origin, and the number of calories in that dish.
+            Return exactly one entry per ingredient, with the ingredient written exactly as given.
+            If you don't know a dish for an ingredient, leave that ingredient out.
+            Ingredients:
+            {ingredients}
+            {format}
+            """;
+
+    private final Prepared<List<String>> dishes =
+            Prepared.of(DISHES, new ListOutputConverter(new DefaultConversionService()));
+    private final Prepared<Map<String, Object>> dishesByCountry =
+            Prepared.of(DISHES_BY_COUNTRY, new MapOutputConverter());
+    private final Prepared<RecipeSuggesterController.Recipe> bestRecipe =
+            Prepared.of(BEST_RECIPE, new BeanOutputConverter<>(RecipeSuggesterController.Recipe.class));
+    private final Prepared<List<RecipeSuggesterController.Recipe>> bestRecipes =
+            Prepared.of(BEST_RECIPES, new BeanOutputConverter<>(new ParameterizedTypeReference<List<RecipeSuggesterController.Recipe>>() {}));
+    private final Prepared<List<RecipeSuggesterController.IngredientRecipe>> bestRecipeBatch =
+            Prepared.of(BEST_RECIPE_BATCH, new BeanOutputConverter<>(new ParameterizedTypeReference<List<RecipeSuggesterController.IngredientRecipe>>() {}),
+                    INGREDIENTS);
+
+    /** Dish names containing an ingredient ({@code List<String>}). */
+    public Prepared<List<String>> dishes() {
+        return dishes;
+    }
+
+    /** Country of origin → dish name. */
+    public Prepared<Map<String, Object>> dishesByCountry() {
+        return dishesByCountry;
+    }
+
+    /** The single best recipe. */
+    public Prepared<RecipeSuggesterController.Recipe> bestRecipe() {
+        return bestRecipe;
+    }
+
+    /** The best recipes, as typed objects. */
+    public Prepared<List<RecipeSuggesterController.Recipe>> bestRecipes() {
+        return bestRecipes;
+    }
+
+    /** The best recipe for each of several ingredients, in one answer. */
+    public Prepared<List<RecipeSuggesterController.IngredientRecipe>> bestRecipeBatch() {
+        return bestRecipeBatch;
+    }
+
+    /**
+     * A converter and the prompt asking for its format, ready to be used concurrently.
+     *
+     * @param template  Prompt with the format instructions folded in; only {@code {ingredient}}
+     *                  (or {@code {ingredients}} for the batch prompt) is left
+     * @param converter Converter parsing the model's answer
+     */
+    public record Prepared<T>(CompiledTemplate template, StructuredOutputConverter<T> converter) {
+
+        static <T> Prepared<T> of(String template, StructuredOutputConverter<T> converter) {
+            return of(template, converter, INGREDIENT);
+        }
+
+        static <T> Prepared<T> of(String template, StructuredOutputConverter<T> converter, String variable) {
+            return new Prepared<>(CompiledTemplate.compile(template, Map.of("format", converter.getFormat()))
+                    .requireVariables(variable), converter);
+        }
+
+        /**
+         * @param ingredient Ingredient the dishes must contain
+         * @return User prompt for that ingredient
+         */
+        public String prompt(String ingredient) {
+            return template.render(INGREDIENT, ingredient);
+        }
+
+        /**
+         * @param ingredients Ingredients of a batch prompt
+         * @return User prompt listing the ingredients one per line
+         */
+        public String prompt(List<String> ingredients) {
+            return template.render(INGREDIENTS, "- " + String.join("\n- ", ingredients));
+        }
+    }
+}
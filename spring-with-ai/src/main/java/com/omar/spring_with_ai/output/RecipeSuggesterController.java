@@ -1,19 +1,28 @@
 package com.omar.spring_with_ai.output;
 
+import com.omar.spring_with_ai.RecipeResponseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.converter.BeanOutputConverter;
-import org.springframework.ai.converter.ListOutputConverter;
-import org.springframework.ai.converter.MapOutputConverter;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * REST controller that demonstrates different ways of interacting
@@ -24,21 +33,40 @@ import java.util.Map;
  *  - /recipes/suggester/country        → Map<String, Object> (country → dish)
  *  - /recipes/suggester/best           → Single Recipe object
  *  - /recipes/suggester/best-list      → List<Recipe> objects
+ *  - /recipes/suggester/best-list/stream → Recipe objects streamed one by one (SSE or NDJSON)
+ *  - POST /recipes/suggester/best/batch → best Recipe per ingredient, many ingredients per model call
+ * <p>
+ * Output converters and prompt templates are built once in {@link RecipeOutputRegistry};
+ * each request only renders the ingredient into its prompt and converts the answer.
+ * Converted answers go through the {@link RecipeResponseCache}, so concurrent or repeated
+ * requests for the same ingredient share one model call.
  */
 @RestController
 @RequestMapping("/recipes/suggester")
 public class RecipeSuggesterController {
 
+    private static final Logger log = LoggerFactory.getLogger(RecipeSuggesterController.class);
+
     private final ChatClient chatClient;
 
-    public RecipeSuggesterController(ChatClient.Builder chatClientBuilder) {
+    private final RecipeOutputRegistry outputs;
+
+    private final RecipeResponseCache cache;
+
+    private final RecipeBatchProperties batchProperties;
+
+    public RecipeSuggesterController(ChatClient.Builder chatClientBuilder, RecipeOutputRegistry outputs,
+                                     RecipeResponseCache cache, RecipeBatchProperties batchProperties) {
         this.chatClient = chatClientBuilder.build();
+        this.outputs = outputs;
+        this.cache = cache;
+        this.batchProperties = batchProperties;
     }
 
 
     /**
      * Suggests dishes containing the given ingredient.
-     * Uses a PromptTemplate with a ListOutputConverter to return a list of strings.
+     * Uses a ListOutputConverter to return a list of strings.
      */
     @GetMapping
     public List<String> suggestRecipeFromIngredient(
@@ -47,32 +75,7 @@ public class RecipeSuggesterController {
                     defaultValue = "shrimp"
             ) String ingredient
     ) {
-        // Message template using Spring AI placeholder syntax {placeholder}
-        String message = """
-                Please suggest me the best 10 dishes containing the ingredient {ingredient}.
-                Just say "I don't know" if you don't know the answer.
-                {format}
-                """;
-
-        // Converter that transforms the model output into a List<String>
-        final ListOutputConverter listOutputConverter = new ListOutputConverter(new DefaultConversionService());
-
-        final PromptTemplate promptTemplate = new PromptTemplate(
-                message,
-                Map.of(
-                        "ingredient", ingredient,
-                       "format", listOutputConverter.getFormat()
-                )
-        );
-
-        // Send to the model
-        String response = this.chatClient.prompt(promptTemplate.create())
-                .call()
-                .content();
-
-        // Convert LLM output → List<String>
-        return listOutputConverter.convert(response);
-
+        return call("suggester", outputs.dishes(), ingredient);
     }
 
     /**
@@ -86,28 +89,7 @@ public class RecipeSuggesterController {
                     defaultValue = "shrimp"
             ) String ingredient
     ) {
-        String message = """
-                Please suggest me the best dishes containing the ingredient {ingredient}.
-                Include the country of origin as a key and the dish name as a value.
-                Just say "I don't know" if you don't know the answer.
-                {format}
-                """;
-
-        final MapOutputConverter mapOutputConverter = new MapOutputConverter();
-
-        final PromptTemplate promptTemplate = new PromptTemplate(
-                message,
-                Map.of(
-                        "ingredient", ingredient,
-                       "format", mapOutputConverter.getFormat()
-                )
-        );
-        String response = this.chatClient.prompt(promptTemplate.create())
-                .call()
-                .content();
-
-        return mapOutputConverter.convert(response);
-
+        return call("suggester/country", outputs.dishesByCountry(), ingredient);
     }
 
     /**
@@ -124,28 +106,7 @@ public class RecipeSuggesterController {
                     defaultValue = "shrimp"
             ) String ingredient
     ) {
-        String message = """
-                Please suggest me the best dish containing the ingredient {ingredient}.
-                Include dish name, country of origin, and the number of calories in that dish.
-                Just say "I don't know" if you don't know the answer.
-                {format}
-                """;
-
-        final BeanOutputConverter<Recipe> beanOutputConverter = new BeanOutputConverter<>(Recipe.class);
-
-        final PromptTemplate promptTemplate = new PromptTemplate(
-                message,
-                Map.of(
-                        "ingredient", ingredient,
-                       "format", beanOutputConverter.getFormat()
-                )
-        );
-        String response = this.chatClient.prompt(promptTemplate.create())
-                .call()
-                .content();
-
-        return beanOutputConverter.convert(response);
-
+        return call("suggester/best", outputs.bestRecipe(), ingredient);
     }
 
     /**
@@ -162,33 +123,189 @@ public class RecipeSuggesterController {
                     defaultValue = "shrimp"
             ) String ingredient
     ) {
-        String message = """
-                Please suggest me the best 10 dishes containing the ingredient {ingredient}.
-                Include dish name, country of origin, and the number of calories in that dish.
-                Just say "I don't know" if you don't know the answer.
-                {format}
-                """;
-
-        ParameterizedTypeReference<List<Recipe>> typeReference = new ParameterizedTypeReference<>() {};
-        final BeanOutputConverter<List<Recipe>> beanOutputConverter = new BeanOutputConverter<>(typeReference);
-
-        final PromptTemplate promptTemplate = new PromptTemplate(
-                message,
-                Map.of(
-                        "ingredient", ingredient,
-                       "format", beanOutputConverter.getFormat()
-                )
-        );
-        String response = this.chatClient.prompt(promptTemplate.create())
+        return call("suggester/best-list", outputs.bestRecipes(), ingredient);
+    }
+
+    /**
+     * Suggests the BEST recipe for each of several ingredients.
+     * <p>
+     * Instead of one model call per ingredient, up to {@code recipes.batch.max-ingredients-per-call}
+     * ingredients are packed into one structured-output prompt; larger requests are split into
+     * several such calls, run in parallel. The answers are fanned back out per ingredient and also
+     * cached for {@code /best}. Ingredients already cached skip the model, and ingredients the
+     * model left out of a batch answer fall back to single {@code /best} calls, also run in parallel.
+     * <p>
+     * Example: POST /recipes/suggester/best/batch with body ["shrimp", "salmon", "lentils"]
+     *
+     * @return Map of each requested ingredient (as given) to its best recipe, in request order;
+     *         {@code null} for an ingredient the model gave no usable recipe for
+     */
+    @PostMapping("/best/batch")
+    public Map<String, Recipe> suggestBestRecipesForIngredients(@RequestBody List<String> ingredients) {
+        if (ingredients.size() > batchProperties.maxIngredients()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + batchProperties.maxIngredients() + " ingredients per request");
+        }
+
+        // normalized ingredient → recipe; duplicates and cached ingredients are not sent again
+        Map<String, Recipe> found = new ConcurrentHashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (String ingredient : ingredients) {
+            String key = RecipeResponseCache.normalize(ingredient);
+            if (key.isEmpty() || found.containsKey(key) || pending.contains(key)) {
+                continue;
+            }
+            Recipe cached = cache.getIfPresent("suggester/best", key);
+            if (cached != null) {
+                found.put(key, cached);
+            }
+            else {
+                pending.add(key);
+            }
+        }
+
+        List<Runnable> batches = new ArrayList<>();
+        int size = batchProperties.maxIngredientsPerCall();
+        for (int from = 0; from < pending.size(); from += size) {
+            List<String> batch = pending.subList(from, Math.min(from + size, pending.size()));
+            batches.add(() -> found.putAll(callBatch(batch)));
+        }
+        runInParallel(batches);
+
+        List<String> missing = pending.stream().filter(key -> !found.containsKey(key)).toList();
+        if (!missing.isEmpty()) {
+            log.debug("Ingredients {} missing from batch answers, asking for each alone", missing);
+            runInParallel(missing.stream()
+                    .<Runnable>map(key -> () -> {
+                        Recipe recipe = call("suggester/best", outputs.bestRecipe(), key);
+                        // an answer that converts to nothing leaves the ingredient unmapped (null in the result)
+                        if (recipe != null) {
+                            found.put(key, recipe);
+                        }
+                    })
+                    .toList());
+        }
+
+        Map<String, Recipe> result = new LinkedHashMap<>();
+        for (String ingredient : ingredients) {
+            String key = RecipeResponseCache.normalize(ingredient);
+            if (!key.isEmpty()) {
+                result.put(ingredient, found.get(key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the model calls on virtual threads and waits for all of them,
+     * rethrowing the first failure as it was thrown.
+     */
+    private static void runInParallel(List<Runnable> calls) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable call : calls) {
+                futures.add(executor.submit(call));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model answers", ex);
+        }
+    }
+
+    /**
+     * One model call for a batch of normalized ingredients.
+     *
+     * @return Recipes by normalized ingredient, only for ingredients the batch asked for
+     */
+    private Map<String, Recipe> callBatch(List<String> batch) {
+        var prepared = outputs.bestRecipeBatch();
+        String response = this.chatClient.prompt()
+                .user(prepared.prompt(batch))
                 .call()
                 .content();
 
-        return beanOutputConverter.convert(response);
+        Map<String, Recipe> recipes = new LinkedHashMap<>();
+        List<IngredientRecipe> items = prepared.converter().convert(response);
+        if (items == null) {
+            return recipes;
+        }
+        for (IngredientRecipe item : items) {
+            if (item == null || item.ingredient() == null || item.recipe() == null) {
+                continue;
+            }
+            String key = RecipeResponseCache.normalize(item.ingredient());
+            if (batch.contains(key)) {
+                recipes.put(key, item.recipe());
+                cache.put("suggester/best", key, item.recipe());
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * Streams the BEST recipes containing the ingredient, one event per Recipe.
+     * <p>
+     * The model's tokens go through a {@link JsonArrayStreamParser}; each recipe is converted
+     * and sent as soon as its JSON object closes, so the first result arrives after one
+     * recipe's worth of generation instead of the whole list. Answers with
+     * {@code Accept: text/event-stream} (SSE) or {@code application/x-ndjson}.
+     */
+    @GetMapping(value = "/best-list/stream",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Recipe> streamBestRecipesFromIngredient(
+            @RequestParam(
+                    name = "ingredient",
+                    defaultValue = "shrimp"
+            ) String ingredient
+    ) {
+        return Flux.defer(() -> {
+            JsonArrayStreamParser parser = new JsonArrayStreamParser();
+            return this.chatClient.prompt()
+                    .user(outputs.bestRecipes().prompt(ingredient))
+                    .stream()
+                    .content()
+                    .concatMapIterable(parser::feed)
+                    .map(outputs.bestRecipe().converter()::convert);
+        });
+    }
+
+    /**
+     * Sends the prepared prompt for the ingredient and converts the model's answer,
+     * unless the cache already has (or is computing) the answer for this endpoint and ingredient.
+     */
+    private <T> T call(String endpoint, RecipeOutputRegistry.Prepared<T> prepared, String ingredient) {
+        return cache.get(endpoint, ingredient, () -> {
+            // Send to the model
+            String response = this.chatClient.prompt()
+                    .user(prepared.prompt(ingredient))
+                    .call()
+                    .content();
 
+            // Convert LLM output → target type
+            return prepared.converter().convert(response);
+        });
     }
 
     /**
      * A simple model used to map LLM output into a Java object.
      */
     public record Recipe(String name, String country, int calories) {}
-}
\ No newline at end of file
+
+    /**
+     * One entry of a batch answer: the ingredient as asked, and its best recipe.
+     */
+    public record IngredientRecipe(String ingredient, Recipe recipe) {}
+}
@@ -0,0 +1,96 @@
+package com.omar.spring_with_ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChefConversationStoreTest {
+
+    @Test
+    void sessionsAreIsolated() {
+        var store = new ChefConversationStore(new ChefSessionProperties(100, Duration.ofMinutes(30), 20, 2000, Duration.ofMinutes(1)));
+
+        turn(store, "alice", "salmon");
+        turn(store, "bob", "tuna");
+
+        assertThat(store.history("alice")).extracting(Message::getText).containsExactly("salmon", "answer to salmon");
+        assertThat(store.history("bob")).extracting(Message::getText).containsExactly("tuna", "answer to tuna");
+    }
+
+    @Test
+    void historyIsCappedByMessageCountKeepingWholeTurns() {
+        var store = new ChefConversationStore(new ChefSessionProperties(100, Duration.ofMinutes(30), 5, 2000, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 10; i++) {
+            turn(store, "alice", "question " + i);
+        }
+
+        assertThat(store.history("alice")).extracting(Message::getText)
+                .containsExactly("question 8", "answer to question 8", "question 9", "answer to question 9");
+    }
+
+    @Test
+    void leastRecentlyUsedSessionsAreDropped() {
+        var store = new ChefConversationStore(new ChefSessionProperties(2, Duration.ofMinutes(30), 20, 2000, Duration.ofMinutes(1)));
+
+        turn(store, "s1", "a");
+        turn(store, "s2", "b");
+        turn(store, "s3", "c");
+        store.evict();
+
+        assertThat(store.size()).isLessThanOrEqualTo(2);
+        assertThat(store.history("s3")).isNotEmpty();
+    }
+
+    @Test
+    void sessionInUseSurvivesTheSweep() throws Exception {
+        var store = new ChefConversationStore(new ChefSessionProperties(100, Duration.ZERO, 20, 2000,
+                Duration.ofMinutes(1)));
+        var answering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> first = executor.submit(() -> store.exchange("alice", history -> {
+                answering.countDown();
+                await(release);
+                return List.of(new UserMessage("salmon"), new AssistantMessage("answer to salmon"));
+            }));
+            answering.await();
+
+            // every session is idle by then, but alice's has a turn in flight
+            store.evict();
+            Future<List<Message>> second = executor.submit(() -> store.exchange("alice", history -> {
+                assertThat(history).extracting(Message::getText).containsExactly("salmon", "answer to salmon");
+                return List.of(new UserMessage("tuna"), new AssistantMessage("answer to tuna"));
+            }));
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(store.history("alice")).extracting(Message::getText)
+                .containsExactly("salmon", "answer to salmon", "tuna", "answer to tuna");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void turn(ChefConversationStore store, String session, String question) {
+        store.exchange(session, history -> List.of(new UserMessage(question), new AssistantMessage("answer to " + question)));
+    }
+}
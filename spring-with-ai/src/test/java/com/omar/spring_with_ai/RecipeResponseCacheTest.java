@@ -0,0 +1,112 @@
+package com.omar.spring_with_ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecipeResponseCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void concurrentIdenticalRequestsShareOneCall() throws Exception {
+        var cache = new RecipeResponseCache(new RecipeCacheProperties(Duration.ofMinutes(10), 100), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> cache.get("best", "shrimp", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "paella";
+            }));
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<String> follower = executor.submit(() -> cache.get("best", " Shrimp ", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            while (count("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("paella");
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("paella");
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(count("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void cachesUntilTtlAndKeysByEndpoint() throws InterruptedException {
+        var cache = new RecipeResponseCache(new RecipeCacheProperties(Duration.ofMillis(50), 100), meterRegistry);
+
+        assertThat(cache.get("best", "shrimp", () -> "v" + calls.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("best", "SHRIMP", () -> "v" + calls.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("country", "shrimp", () -> "v" + calls.incrementAndGet())).isEqualTo("v2");
+        Thread.sleep(80);
+        assertThat(cache.get("best", "shrimp", () -> "v" + calls.incrementAndGet())).isEqualTo("v3");
+        assertThat(count("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        var cache = new RecipeResponseCache(new RecipeCacheProperties(Duration.ofMinutes(10), 100), meterRegistry);
+
+        assertThatThrownBy(() -> cache.get("best", "shrimp", () -> {
+            throw new IllegalStateException("model down");
+        })).hasMessage("model down");
+        assertThat(cache.get("best", "shrimp", () -> "paella")).isEqualTo("paella");
+    }
+
+    @Test
+    void errorInTheLeaderReleasesFollowers() throws Exception {
+        var cache = new RecipeResponseCache(new RecipeCacheProperties(Duration.ofMinutes(10), 100), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> cache.get("best", "shrimp", () -> {
+                calls.incrementAndGet();
+                await(release);
+                throw new StackOverflowError("converter recursion");
+            }));
+            while (calls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<String> follower = executor.submit(() -> cache.<String>get("best", "shrimp", () -> "other"));
+            while (count("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        }
+        assertThat(cache.get("best", "shrimp", () -> "paella")).isEqualTo("paella");
+    }
+
+    private double count(String result) {
+        var counter = meterRegistry.find("recipes.cache.requests").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.omar.spring_with_ai.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonArrayStreamParserTest {
+
+    @Test
+    void emitsEachObjectAsSoonAsItCloses() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("```json\n[{\"name\": \"Pad")).isEmpty();
+        assertThat(parser.feed(" thai\", \"calories\": 550}")).containsExactly("{\"name\": \"Pad thai\", \"calories\": 550}");
+        assertThat(parser.feed(", {\"name\"")).isEmpty();
+        assertThat(parser.feed(": \"Paella\"}]\n```")).containsExactly("{\"name\": \"Paella\"}");
+    }
+
+    @Test
+    void ignoresBracketsInsideStringsAndHandlesEscapes() {
+        var parser = new JsonArrayStreamParser();
+        String json = "[{\"name\": \"Shrimp {spicy} [v2] \\\"hot\\\"\", \"tags\": [\"a\", {\"b\": 1}]}, {\"name\": \"x\"}]";
+
+        List<String> elements = new ArrayList<>();
+        for (char c : json.toCharArray()) {
+            elements.addAll(parser.feed(String.valueOf(c)));
+        }
+
+        assertThat(elements).containsExactly(
+                "{\"name\": \"Shrimp {spicy} [v2] \\\"hot\\\"\", \"tags\": [\"a\", {\"b\": 1}]}",
+                "{\"name\": \"x\"}");
+    }
+
+    @Test
+    void ignoresTextAroundTheArray() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("Here you go {not json}: [{\"a\": 1}] trailing {\"b\": 2}"))
+                .containsExactly("{\"a\": 1}");
+    }
+
+    @Test
+    void ignoresBracketsInProseBeforeTheArray() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("Here are [3] recipes and a [link](x): [")).isEmpty();
+        assertThat(parser.feed("\n  ")).isEmpty();
+        assertThat(parser.feed("{\"a\": 1}, {\"b\": 2}]")).containsExactly("{\"a\": 1}", "{\"b\": 2}");
+    }
+
+    @Test
+    void emptyArrayEndsTheStream() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("[ ] then [{\"a\": 1}]")).isEmpty();
+    }
+}
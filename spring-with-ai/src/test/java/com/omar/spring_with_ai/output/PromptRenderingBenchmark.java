@@ -0,0 +1,63 @@
+package com.omar.spring_with_ai.output;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of rendering the best-recipe prompt through {@link PromptTemplate} (parsed on
+ * every request) versus the {@link CompiledTemplate} held by {@link RecipeOutputRegistry}.
+ * <p>
+ * Run {@link #main} from the IDE, or with:
+ * {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.omar.spring_with_ai.output.PromptRenderingBenchmark"}
+ * (append JMH options such as {@code -prof gc} for allocation per operation)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptRenderingBenchmark {
+
+    private final RecipeOutputRegistry.Prepared<RecipeSuggesterController.Recipe> prepared =
+            new RecipeOutputRegistry().bestRecipe();
+    private final String format = prepared.converter().getFormat();
+
+    @Benchmark
+    public String promptTemplate() {
+        return PromptTemplate.builder()
+                .template(RecipeOutputRegistry.BEST_RECIPE)
+                .variables(Map.of(RecipeOutputRegistry.INGREDIENT, "shrimp", "format", format))
+                .build()
+                .render();
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return prepared.prompt("shrimp");
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PromptRenderingBenchmark.class.getName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,73 @@
+package com.omar.spring_with_ai.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.util.List;
+
+/**
+ * Tokens and wall time per ingredient: one {@code /best} call per ingredient versus the
+ * {@code /best/batch} prompt packing all of them into one call.
+ * <p>
+ * {@link #promptTokens()} estimates input tokens offline. {@link #liveCalls()} calls the model
+ * (needs {@code OPEN_AI_API_KEY}) and reports the usage returned by the API.
+ * <p>
+ * Run with: {@code ./mvnw test -Dtest=RecipeBatchBenchmark -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RecipeBatchBenchmark {
+
+    private static final List<String> INGREDIENTS = List.of("shrimp", "salmon", "lentils", "chickpeas", "tofu",
+            "eggplant", "lamb", "mushrooms", "spinach", "quinoa", "duck", "cod", "pumpkin", "beef", "avocado",
+            "rice", "tomato", "squid", "chicken", "potato");
+
+    private final RecipeOutputRegistry registry = new RecipeOutputRegistry();
+    private final JTokkitTokenCountEstimator tokens = new JTokkitTokenCountEstimator();
+
+    @Test
+    void promptTokens() {
+        int single = INGREDIENTS.stream().mapToInt(i -> tokens.estimate(registry.bestRecipe().prompt(i))).sum();
+        int batch = tokens.estimate(registry.bestRecipeBatch().prompt(INGREDIENTS));
+        System.out.printf("input tokens per ingredient (%d ingredients): single %.1f | batch %.1f%n",
+                INGREDIENTS.size(), (double) single / INGREDIENTS.size(), (double) batch / INGREDIENTS.size());
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "OPEN_AI_API_KEY", matches = ".+")
+    void liveCalls() {
+        ChatClient chatClient = ChatClient.create(OpenAiChatModel.builder()
+                .openAiApi(OpenAiApi.builder().apiKey(System.getenv("OPEN_AI_API_KEY")).build())
+                .defaultOptions(OpenAiChatOptions.builder().model("gpt-4o").build())
+                .build());
+
+        long start = System.nanoTime();
+        long singleTokens = 0;
+        for (String ingredient : INGREDIENTS) {
+            singleTokens += totalTokens(chatClient.prompt().user(registry.bestRecipe().prompt(ingredient))
+                    .call().chatResponse());
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long batchTokens = totalTokens(chatClient.prompt().user(registry.bestRecipeBatch().prompt(INGREDIENTS))
+                .call().chatResponse());
+        long batchNanos = System.nanoTime() - start;
+
+        int n = INGREDIENTS.size();
+        System.out.printf("per ingredient: single %.0f tokens, %.0f ms | batch %.0f tokens, %.0f ms%n",
+                (double) singleTokens / n, singleNanos / 1e6 / n, (double) batchTokens / n, batchNanos / 1e6 / n);
+    }
+
+    private static long totalTokens(ChatResponse response) {
+        Usage usage = response.getMetadata().getUsage();
+        return usage.getTotalTokens();
+    }
+}
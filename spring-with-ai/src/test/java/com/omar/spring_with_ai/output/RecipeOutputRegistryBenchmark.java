@@ -0,0 +1,97 @@
+package com.omar.spring_with_ai.output;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.converter.ListOutputConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of preparing a RecipeSuggesterController call (prompt plus converted answer),
+ * building the converter and prompt on every request versus reusing {@link RecipeOutputRegistry}.
+ * The model call itself is not included.
+ * <p>
+ * Run {@link #main} from the IDE, or with:
+ * {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.omar.spring_with_ai.output.RecipeOutputRegistryBenchmark"}
+ * (append JMH options such as {@code -prof gc} for allocation per operation)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeOutputRegistryBenchmark {
+
+    private static final String LIST_ANSWER = "Pad thai, Paella, Gambas al ajillo";
+    private static final String RECIPES_ANSWER = """
+            [{"name": "Gambas al ajillo", "country": "Spain", "calories": 320},
+             {"name": "Pad thai", "country": "Thailand", "calories": 550}]
+            """;
+
+    private final RecipeOutputRegistry registry = new RecipeOutputRegistry();
+
+    @Benchmark
+    public void dishesPerRequest(Blackhole blackhole) {
+        var converter = new ListOutputConverter(new DefaultConversionService());
+        blackhole.consume(PromptTemplate.builder()
+                .template(RecipeOutputRegistry.DISHES)
+                .variables(Map.of(RecipeOutputRegistry.INGREDIENT, "shrimp", "format", converter.getFormat()))
+                .build()
+                .render());
+        blackhole.consume(converter.convert(LIST_ANSWER));
+    }
+
+    @Benchmark
+    public void dishesRegistry(Blackhole blackhole) {
+        var prepared = registry.dishes();
+        blackhole.consume(prepared.prompt("shrimp"));
+        blackhole.consume(prepared.converter().convert(LIST_ANSWER));
+    }
+
+    @Benchmark
+    public void bestRecipesPerRequest(Blackhole blackhole) {
+        var converter = new BeanOutputConverter<>(
+                new ParameterizedTypeReference<List<RecipeSuggesterController.Recipe>>() {});
+        blackhole.consume(PromptTemplate.builder()
+                .template(RecipeOutputRegistry.BEST_RECIPES)
+                .variables(Map.of(RecipeOutputRegistry.INGREDIENT, "shrimp", "format", converter.getFormat()))
+                .build()
+                .render());
+        blackhole.consume(converter.convert(RECIPES_ANSWER));
+    }
+
+    @Benchmark
+    public void bestRecipesRegistry(Blackhole blackhole) {
+        var prepared = registry.bestRecipes();
+        blackhole.consume(prepared.prompt("shrimp"));
+        blackhole.consume(prepared.converter().convert(RECIPES_ANSWER));
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(RecipeOutputRegistryBenchmark.class.getName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.omar.spring_with_ai.output;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecipeOutputRegistryTest {
+
+    private final RecipeOutputRegistry registry = new RecipeOutputRegistry();
+
+    @Test
+    void promptsMatchPromptTemplateRendering() {
+        assertSameAsPromptTemplate(RecipeOutputRegistry.DISHES, registry.dishes());
+        assertSameAsPromptTemplate(RecipeOutputRegistry.DISHES_BY_COUNTRY, registry.dishesByCountry());
+        assertSameAsPromptTemplate(RecipeOutputRegistry.BEST_RECIPE, registry.bestRecipe());
+        assertSameAsPromptTemplate(RecipeOutputRegistry.BEST_RECIPES, registry.bestRecipes());
+    }
+
+    @Test
+    void sharedConvertersParseAnswers() {
+        assertThat(registry.bestRecipes().converter().convert("""
+                [{"name": "Gambas al ajillo", "country": "Spain", "calories": 320}]
+                """)).containsExactly(new RecipeSuggesterController.Recipe("Gambas al ajillo", "Spain", 320));
+        assertThat(registry.dishes().converter().convert("Pad thai, Paella")).isEqualTo(List.of("Pad thai", "Paella"));
+    }
+
+    @Test
+    void batchPromptListsIngredientsAndParsesKeyedAnswer() {
+        var batch = registry.bestRecipeBatch();
+
+        assertThat(batch.prompt(List.of("shrimp", "salmon")))
+                .contains("- shrimp\n- salmon")
+                .contains(batch.converter().getFormat());
+        assertThat(batch.converter().convert("""
+                [{"ingredient": "shrimp", "recipe": {"name": "Gambas al ajillo", "country": "Spain", "calories": 320}}]
+                """)).containsExactly(new RecipeSuggesterController.IngredientRecipe("shrimp",
+                new RecipeSuggesterController.Recipe("Gambas al ajillo", "Spain", 320)));
+    }
+
+    @Test
+    void compiledTemplateRequiresOpenVariables() {
+        var template = CompiledTemplate.compile("{greeting}, {name}! {format}", Map.of("format", "{\"json\": true}"));
+
+        assertThat(template.render(Map.of("greeting", "Hello", "name", "chef")))
+                .isEqualTo("Hello, chef! {\"json\": true}");
+        assertThatThrownBy(() -> template.render("greeting", "Hello"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(template.variables()).containsExactly("greeting", "name");
+        assertThatThrownBy(() -> template.requireVariables("greeting"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("name");
+    }
+
+    @Test
+    void compiledTemplateKeepsNonPlaceholderBracesLiteral() {
+        var template = CompiledTemplate.compile("{ \"a\": {1} } {x-y} {ingredient}{", Map.of())
+                .requireVariables("ingredient");
+
+        assertThat(template.render("ingredient", "{shrimp}")).isEqualTo("{ \"a\": {1} } {x-y} {shrimp}{");
+    }
+
+    private static void assertSameAsPromptTemplate(String template, RecipeOutputRegistry.Prepared<?> prepared) {
+        String expected = PromptTemplate.builder()
+                .template(template)
+                .variables(Map.of("ingredient", "shrimp", "format", prepared.converter().getFormat()))
+                .build()
+                .render();
+        assertThat(prepared.prompt("shrimp")).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,170 @@
+package com.omar.spring_with_ai.output;
+
+import com.omar.spring_with_ai.RecipeCacheProperties;
+import com.omar.spring_with_ai.RecipeResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecipeSuggesterControllerTest {
+
+    private static final Pattern SINGLE = Pattern.compile("containing the ingredient (\\S+)\\.");
+    private static final Pattern LISTED = Pattern.compile("(?m)^- (\\S+)$");
+
+    private final ChatModel chatModel = mock(ChatModel.class);
+    private final RecipeResponseCache cache = new RecipeResponseCache(
+            new RecipeCacheProperties(Duration.ofMinutes(10), 100), new SimpleMeterRegistry());
+    private final List<List<String>> batchCalls = new CopyOnWriteArrayList<>();
+    private final List<String> singleCalls = new CopyOnWriteArrayList<>();
+
+    @Test
+    void largeRequestIsSplitIntoParallelBatches() {
+        // each batch call waits until all three are in flight
+        var inFlight = new CountDownLatch(3);
+        answer(Set.of(), inFlight, new CountDownLatch(0));
+
+        var result = controller(2).suggestBestRecipesForIngredients(
+                List.of("shrimp", "salmon", "lentils", "tofu", "duck"));
+
+        assertThat(batchCalls).containsExactlyInAnyOrder(
+                List.of("shrimp", "salmon"), List.of("lentils", "tofu"), List.of("duck"));
+        assertThat(singleCalls).isEmpty();
+        assertThat(result).containsOnlyKeys("shrimp", "salmon", "lentils", "tofu", "duck");
+        assertThat(result.get("tofu")).isEqualTo(recipe("tofu"));
+    }
+
+    @Test
+    void ingredientsLeftOutOfTheBatchFallBackToParallelSingleCalls() {
+        // each single call waits until both are in flight
+        var singlesInFlight = new CountDownLatch(2);
+        answer(Set.of("salmon", "tofu"), new CountDownLatch(0), singlesInFlight);
+
+        var result = controller(20).suggestBestRecipesForIngredients(List.of("shrimp", "salmon", "tofu"));
+
+        assertThat(batchCalls).containsExactly(List.of("shrimp", "salmon", "tofu"));
+        assertThat(singleCalls).containsExactlyInAnyOrder("salmon", "tofu");
+        assertThat(result).containsExactly(Map.entry("shrimp", recipe("shrimp")),
+                Map.entry("salmon", recipe("salmon")), Map.entry("tofu", recipe("tofu")));
+        assertThat((RecipeSuggesterController.Recipe) cache.getIfPresent("suggester/best", "salmon"))
+                .isEqualTo(recipe("salmon"));
+    }
+
+    @Test
+    void cachedAndDuplicateIngredientsAreNotSentAgain() {
+        answer(Set.of(), new CountDownLatch(0), new CountDownLatch(0));
+        cache.put("suggester/best", "shrimp", recipe("cached shrimp"));
+
+        var result = controller(20).suggestBestRecipesForIngredients(List.of("Shrimp", "salmon", " SALMON "));
+
+        assertThat(batchCalls).containsExactly(List.of("salmon"));
+        assertThat(result).containsExactly(Map.entry("Shrimp", recipe("cached shrimp")),
+                Map.entry("salmon", recipe("salmon")), Map.entry(" SALMON ", recipe("salmon")));
+    }
+
+    @Test
+    void answersThatConvertToNothingLeaveTheIngredientWithoutARecipe() {
+        // the batch answer converts to no list at all, and tofu's single answer to no recipe
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            Matcher single = SINGLE.matcher(invocation.<Prompt>getArgument(0).getContents());
+            String answer = "null";
+            if (single.find()) {
+                singleCalls.add(single.group(1));
+                if (!single.group(1).equals("tofu")) {
+                    answer = json(single.group(1));
+                }
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(answer))));
+        });
+
+        var result = controller(20).suggestBestRecipesForIngredients(List.of("shrimp", "tofu"));
+
+        assertThat(singleCalls).containsExactlyInAnyOrder("shrimp", "tofu");
+        assertThat(result).containsExactly(Map.entry("shrimp", recipe("shrimp")), entry("tofu", null));
+        assertThat((Object) cache.getIfPresent("suggester/best", "tofu")).isNull();
+    }
+
+    @Test
+    void batchSizeMustBePositive() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(BatchPropertiesConfiguration.class)
+                .withPropertyValues("recipes.batch.max-ingredients-per-call=0")
+                .run(context -> assertThat(context).getFailure()
+                        .rootCause().hasMessageContaining("maxIngredientsPerCall"));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(RecipeBatchProperties.class)
+    static class BatchPropertiesConfiguration {
+    }
+
+    private RecipeSuggesterController controller(int maxIngredientsPerCall) {
+        return new RecipeSuggesterController(ChatClient.builder(chatModel), new RecipeOutputRegistry(), cache,
+                new RecipeBatchProperties(maxIngredientsPerCall, 500));
+    }
+
+    /**
+     * Answers batch prompts with a recipe for every listed ingredient except {@code leftOut},
+     * and single prompts with a recipe for their ingredient. Calls of each kind wait on their
+     * latch, so a test fails (instead of hanging) if they are not run concurrently.
+     */
+    private void answer(Set<String> leftOut, CountDownLatch batches, CountDownLatch singles) {
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            String prompt = invocation.<Prompt>getArgument(0).getContents();
+            Matcher single = SINGLE.matcher(prompt);
+            String answer;
+            if (single.find()) {
+                singleCalls.add(single.group(1));
+                arrive(singles);
+                answer = json(single.group(1));
+            }
+            else {
+                List<String> batch = LISTED.matcher(prompt).results().map(m -> m.group(1)).toList();
+                batchCalls.add(batch);
+                arrive(batches);
+                answer = batch.stream()
+                        .filter(ingredient -> !leftOut.contains(ingredient))
+                        .map(ingredient -> "{\"ingredient\": \"" + ingredient + "\", \"recipe\": " + json(ingredient) + "}")
+                        .collect(Collectors.joining(", ", "[", "]"));
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(answer))));
+        });
+    }
+
+    private static void arrive(CountDownLatch latch) throws InterruptedException {
+        latch.countDown();
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("calls run in parallel").isTrue();
+    }
+
+    private static String json(String ingredient) {
+        return "{\"name\": \"" + recipe(ingredient).name() + "\", \"country\": \"Spain\", \"calories\": 300}";
+    }
+
+    private static RecipeSuggesterController.Recipe recipe(String ingredient) {
+        return new RecipeSuggesterController.Recipe("Dish with " + ingredient, "Spain", 300);
+    }
+}
@@ -1,9 +1,13 @@
 package com.omar.structured_output;
 
+import com.omar.structured_output.output.ItineraryCacheProperties;
+import com.omar.structured_output.output.StructuredOutputProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties({StructuredOutputProperties.class, ItineraryCacheProperties.class})
 public class StructuredOutputApplication {
 
 	public static void main(String[] args) {
@@ -1,10 +1,15 @@
 package com.omar.structured_output.controller;
 
 import com.omar.structured_output.model.Itinerary;
+import com.omar.structured_output.output.ItineraryCache;
+import com.omar.structured_output.output.ItineraryGenerator;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 /**
  * 🔹 VacationPlanController
@@ -20,6 +25,7 @@ import org.springframework.web.bind.annotation.RestController;
  *    - Leverages Spring AI's ability to map AI responses directly to Java records (`Itinerary` and `Activity`).
  *    - Returns structured JSON suitable for frontend rendering, calendar integration, or programmatic processing.
  *    - Demonstrates how AI responses can be typed, validated, and consumed as standard Spring Boot objects.
+ *    - Also streamed activity by activity (`/vacation/structured/stream`).
  * <p>
  * This controller highlights the power of **structured outputs** in Spring AI, showing how AI-generated content can
  * seamlessly integrate into strongly-typed Java applications, making it easier to work with, validate, and display.
@@ -28,9 +34,14 @@ import org.springframework.web.bind.annotation.RestController;
 public class VacationPlanController {
 
     private final ChatClient chatClient;
+    private final ItineraryGenerator itineraryGenerator;
+    private final ItineraryCache itineraryCache;
 
-    public VacationPlanController(ChatClient.Builder builder) {
+    public VacationPlanController(ChatClient.Builder builder, ItineraryGenerator itineraryGenerator,
+                                  ItineraryCache itineraryCache) {
         this.chatClient = builder.build();
+        this.itineraryGenerator = itineraryGenerator;
+        this.itineraryCache = itineraryCache;
     }
 
     /**
@@ -66,6 +77,11 @@ public class VacationPlanController {
      * Use Case:
      * - Provides structured JSON suitable for front-end rendering, calendar integration, or further processing.
      * <p>
+     * The schema is sent as the provider's strict JSON-schema response format, and slightly malformed
+     * answers are repaired locally before the model is asked again (see {@link ItineraryGenerator}).
+     * Itineraries are cached per destination, so "Cleveland, OH" and "cleveland ohio" are
+     * generated once (see {@link ItineraryCache}).
+     * <p>
      * Query Parameter:
      * - destination (optional): The destination city. Defaults to "Cleveland, OH".
      *
@@ -74,14 +90,46 @@ public class VacationPlanController {
      */
     @GetMapping("/vacation/structured")
     public Itinerary vacationStructured(@RequestParam(value = "destination", defaultValue = "Cleveland, OH") String destination) {
-        return chatClient.prompt()
-                .user(u -> {
-                    // Build a dynamic user prompt with the destination parameter
-                    u.text("What's a good vacation plan while I'm in {destination} for 3 days?");
-                    u.param("destination", destination);
-                })
-                .call()
-                .entity(Itinerary.class);
+        return itineraryCache.get(destination, itineraryGenerator::generate);
+    }
+
+    /**
+     * 🔹 Streaming Structured Vacation Plan Endpoint
+     * Endpoint: GET /vacation/structured/stream
+     * <p>
+     * Same itinerary as {@code /vacation/structured}, sent as Server-Sent Events while the model
+     * writes it: each `Activity` is sent as soon as its JSON object is complete, so the first
+     * activity shows up long before the whole itinerary has been generated. The last event is the
+     * complete, validated `Itinerary`. A cached itinerary for the destination is sent at once; a
+     * streamed one is cached for the next requests.
+     * <p>
+     * Example Response (text/event-stream):
+     * event:activity
+     * data:{"activity":"Rock and Roll Hall of Fame","location":"Downtown Cleveland","day":"Day 1","time":"10:00 AM"}
+     * <p>
+     * event:itinerary
+     * data:{"itinerary":[{"activity":"Rock and Roll Hall of Fame", ...}, ...]}
+     * <p>
+     * On failure, an event named "error" is sent and the stream ends.
+     *
+     * @param destination The target destination for the vacation plan
+     * @return "activity" events followed by one "itinerary" event
+     */
+    @GetMapping(value = "/vacation/structured/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> vacationStructuredStream(
+            @RequestParam(value = "destination", defaultValue = "Cleveland, OH") String destination) {
+        Itinerary cached = itineraryCache.getIfPresent(destination, itineraryGenerator::generate);
+        if (cached != null) {
+            return Flux.concat(Flux.fromIterable(cached.itinerary())
+                            .map(activity -> ServerSentEvent.<Object>builder(activity).event("activity").build()),
+                    Flux.just(ServerSentEvent.<Object>builder(cached).event("itinerary").build()));
+        }
+        return itineraryGenerator.stream(destination)
+                .doOnNext(event -> {
+                    if (event.data() instanceof Itinerary itinerary) {
+                        itineraryCache.put(destination, itinerary);
+                    }
+                });
     }
 
 }
\ No newline at end of file
@@ -1,4 +1,10 @@
 package com.omar.structured_output.model;
 
-public record Activity(String activity, String location, String day, String time) {
-}
\ No newline at end of file
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// required = true puts every field in the JSON schema's "required" list, as strict schema mode needs
+public record Activity(@JsonProperty(required = true) String activity,
+                       @JsonProperty(required = true) String location,
+                       @JsonProperty(required = true) String day,
+                       @JsonProperty(required = true) String time) {
+}
@@ -1,6 +1,8 @@
 package com.omar.structured_output.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
-public record Itinerary(List<Activity> itinerary) {
-}
\ No newline at end of file
+public record Itinerary(@JsonProperty(required = true) List<Activity> itinerary) {
+}
@@ -0,0 +1,289 @@
+package com.omar.structured_output.output;
+
+import com.omar.structured_output.model.Itinerary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Generated itineraries, keyed by normalized destination.
+ * <p>
+ * Spellings of the same place share one key (see {@link #normalize}), so "Cleveland, OH",
+ * "cleveland ohio" and "Cleveland,  Ohio." generate one itinerary.
+ * <p>
+ * Each destination has one {@link Slot} holding its current itinerary and the generation in
+ * progress, if any, so a request sees both under one lock:
+ * - An itinerary younger than the TTL is returned without calling the model
+ * - An itinerary past the TTL but within the stale-while-revalidate window is still returned
+ *   instantly, while one background generation replaces it
+ * - Otherwise the first request generates the itinerary; identical requests arriving meanwhile
+ *   wait for its generation instead of starting their own, and see its failure if it fails
+ * - Failed generations and itineraries without activities are not cached; a failed refresh
+ *   keeps the stale itinerary
+ * <p>
+ * The cache is bounded by {@code vacation.cache.max-entries}, least recently used first;
+ * a destination being generated is not evicted.
+ * <p>
+ * Metrics: {@code vacation.cache.requests{result=hit|stale|coalesced|miss}} and
+ * {@code vacation.cache.refreshes{result=success|failure}}.
+ */
+@Component
+public class ItineraryCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ItineraryCache.class);
+
+    private static final Map<String, String> STATES = Map.ofEntries(
+            Map.entry("al", "alabama"), Map.entry("ak", "alaska"), Map.entry("az", "arizona"),
+            Map.entry("ar", "arkansas"), Map.entry("ca", "california"), Map.entry("co", "colorado"),
+            Map.entry("ct", "connecticut"), Map.entry("de", "delaware"), Map.entry("dc", "district of columbia"),
+            Map.entry("fl", "florida"), Map.entry("ga", "georgia"), Map.entry("hi", "hawaii"),
+            Map.entry("id", "idaho"), Map.entry("il", "illinois"), Map.entry("in", "indiana"),
+            Map.entry("ia", "iowa"), Map.entry("ks", "kansas"), Map.entry("ky", "kentucky"),
+            Map.entry("la", "louisiana"), Map.entry("me", "maine"), Map.entry("md", "maryland"),
+            Map.entry("ma", "massachusetts"), Map.entry("mi", "michigan"), Map.entry("mn", "minnesota"),
+            Map.entry("ms", "mississippi"), Map.entry("mo", "missouri"), Map.entry("mt", "montana"),
+            Map.entry("ne", "nebraska"), Map.entry("nv", "nevada"), Map.entry("nh", "new hampshire"),
+            Map.entry("nj", "new jersey"), Map.entry("nm", "new mexico"), Map.entry("ny", "new york"),
+            Map.entry("nc", "north carolina"), Map.entry("nd", "north dakota"), Map.entry("oh", "ohio"),
+            Map.entry("ok", "oklahoma"), Map.entry("or", "oregon"), Map.entry("pa", "pennsylvania"),
+            Map.entry("ri", "rhode island"), Map.entry("sc", "south carolina"), Map.entry("sd", "south dakota"),
+            Map.entry("tn", "tennessee"), Map.entry("tx", "texas"), Map.entry("ut", "utah"),
+            Map.entry("vt", "vermont"), Map.entry("va", "virginia"), Map.entry("wa", "washington"),
+            Map.entry("wv", "west virginia"), Map.entry("wi", "wisconsin"), Map.entry("wy", "wyoming"));
+
+    private final ItineraryCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // guarded by itself
+    private final Map<String, Slot> slots;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ItineraryCache(ItineraryCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Slot> eldest) {
+                return size() > properties.maxEntries() && eldest.getValue().generation == null;
+            }
+        };
+    }
+
+    /**
+     * @param destination Requested destination
+     * @param generate    Generates the itinerary for a destination
+     * @return Cached, shared or freshly generated itinerary
+     */
+    public Itinerary get(String destination, Function<String, Itinerary> generate) {
+        Slot slot;
+        CompletableFuture<Itinerary> generation;
+        boolean leader;
+        synchronized (slots) {
+            slot = slots.computeIfAbsent(normalize(destination), Slot::new);
+            Itinerary cached = cached(slot, destination, generate);
+            if (cached != null) {
+                return cached;
+            }
+            leader = slot.generation == null;
+            if (leader) {
+                count("miss");
+                slot.generation = new CompletableFuture<>();
+            }
+            else {
+                count("coalesced");
+            }
+            generation = slot.generation;
+        }
+        return leader ? generate(slot, generation, destination, generate) : join(generation);
+    }
+
+    /**
+     * Returns a fresh or stale itinerary without generating one in the request; a stale itinerary
+     * is regenerated in the background.
+     *
+     * @param destination Requested destination
+     * @param generate    Generates the itinerary for a destination, used for the background refresh
+     * @return Cached itinerary, or {@code null} if the caller has to generate it
+     */
+    public Itinerary getIfPresent(String destination, Function<String, Itinerary> generate) {
+        synchronized (slots) {
+            Slot slot = slots.get(normalize(destination));
+            return slot == null ? null : cached(slot, destination, generate);
+        }
+    }
+
+    /**
+     * Caches an itinerary generated elsewhere, e.g. the terminal event of a completed stream.
+     */
+    public void put(String destination, Itinerary itinerary) {
+        synchronized (slots) {
+            store(slots.computeIfAbsent(normalize(destination), Slot::new), itinerary);
+        }
+    }
+
+    /**
+     * Called holding the lock.
+     *
+     * @return The slot's itinerary if it is fresh, or stale with a background refresh started;
+     *         otherwise {@code null}
+     */
+    private Itinerary cached(Slot slot, String destination, Function<String, Itinerary> generate) {
+        if (slot.itinerary == null) {
+            return null;
+        }
+        long age = System.nanoTime() - slot.storedAt;
+        if (age < properties.ttl().toNanos()) {
+            count("hit");
+            return slot.itinerary;
+        }
+        if (age < properties.ttl().plus(properties.staleWhileRevalidate()).toNanos()) {
+            count("stale");
+            if (slot.generation == null) {
+                CompletableFuture<Itinerary> generation = slot.generation = new CompletableFuture<>();
+                refreshExecutor.execute(() -> refresh(slot, generation, destination, generate));
+            }
+            return slot.itinerary;
+        }
+        return null;
+    }
+
+    private void refresh(Slot slot, CompletableFuture<Itinerary> generation, String destination,
+                         Function<String, Itinerary> generate) {
+        try {
+            generate(slot, generation, destination, generate);
+            refreshed("success");
+        }
+        catch (RuntimeException ex) {
+            refreshed("failure");
+            log.warn("Regenerating the itinerary for '{}' failed, keeping the stale one", destination, ex);
+        }
+    }
+
+    /**
+     * Runs the slot's generation outside the lock. Whatever it throws, {@link Error}s included,
+     * fails the generation too, so requests waiting on it are released.
+     */
+    private Itinerary generate(Slot slot, CompletableFuture<Itinerary> generation, String destination,
+                               Function<String, Itinerary> generate) {
+        try {
+            Itinerary itinerary = generate.apply(destination);
+            synchronized (slots) {
+                store(slot, itinerary);
+            }
+            generation.complete(itinerary);
+            return itinerary;
+        }
+        catch (Throwable ex) {
+            generation.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            synchronized (slots) {
+                if (slot.generation == generation) {
+                    slot.generation = null;
+                }
+                if (slot.itinerary == null) {
+                    slots.remove(slot.key, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called holding the lock.
+     */
+    private static void store(Slot slot, Itinerary itinerary) {
+        // an empty plan is no answer; ask again next time
+        if (itinerary != null && itinerary.itinerary() != null && !itinerary.itinerary().isEmpty()) {
+            slot.itinerary = itinerary;
+            slot.storedAt = System.nanoTime();
+        }
+    }
+
+    private static Itinerary join(CompletableFuture<Itinerary> generation) {
+        try {
+            return generation.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("vacation.cache.requests")
+                .description("Itinerary requests by cache outcome; hit, stale and coalesced requests skipped the model")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void refreshed(String result) {
+        Counter.builder("vacation.cache.refreshes")
+                .description("Background regenerations of stale itineraries")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return Destination as used in cache keys: lower case without accents or punctuation,
+     * single-spaced, with a trailing US state abbreviation spelled out ("Cleveland, OH" and
+     * "cleveland ohio" both give "cleveland ohio")
+     */
+    static String normalize(String destination) {
+        String key = Normalizer.normalize(destination, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("['.]", "")
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .strip();
+        int lastSpace = key.lastIndexOf(' ');
+        // only a word after the city name can be a state abbreviation
+        if (lastSpace > 0) {
+            String state = STATES.get(key.substring(lastSpace + 1));
+            if (state != null) {
+                key = key.substring(0, lastSpace + 1) + state;
+            }
+        }
+        return key;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * Current itinerary of a destination ({@code null} until one is generated) and the
+     * generation in progress ({@code null} if none). Guarded by the slots map.
+     */
+    private static final class Slot {
+        private final String key;
+        private Itinerary itinerary;
+        private long storedAt;
+        private CompletableFuture<Itinerary> generation;
+
+        private Slot(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.omar.structured_output.output;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the {@link ItineraryCache} behind the structured vacation endpoints.
+ * <p>
+ * Usage in application.yaml:
+ *   vacation:
+ *     cache:
+ *       ttl: 6h
+ *       stale-while-revalidate: 7d
+ *       max-entries: 500
+ *
+ * @param ttl                  How long a generated itinerary is served as is
+ * @param staleWhileRevalidate How long after the TTL an itinerary is still served while a new one
+ *                             is generated in the background; {@code 0} regenerates in the request
+ * @param maxEntries           Destinations kept before the least recently used ones are dropped
+ */
+@ConfigurationProperties("vacation.cache")
+public record ItineraryCacheProperties(@DefaultValue("6h") Duration ttl,
+                                       @DefaultValue("7d") Duration staleWhileRevalidate,
+                                       @DefaultValue("500") int maxEntries) {
+}
@@ -0,0 +1,274 @@
+package com.omar.structured_output.output;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.omar.structured_output.model.Activity;
+import com.omar.structured_output.model.Itinerary;
+import com.omar.structured_output.output.StructuredOutputProperties.Mode;
+import com.omar.structured_output.prompt.CompiledTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.ResponseFormat;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Map;
+
+/**
+ * Asks the model for a 3-day {@link Itinerary} and binds the answer.
+ * <p>
+ * In {@code native} mode the Itinerary/Activity JSON schema goes out as OpenAI's strict
+ * {@code response_format}, so the model is constrained to valid JSON and the prompt carries no
+ * format instructions. If the provider rejects the response format, the generator switches to
+ * {@code prompt} mode, which appends the format instructions to the prompt like
+ * {@code entity(Itinerary.class)} does.
+ * <p>
+ * Every answer goes through {@link JsonRepair} (fences, prose, trailing commas, cut-off output),
+ * which leaves valid JSON untouched; a repaired answer keeps only its complete activities. Only
+ * when the answer still doesn't bind is the model asked again, up to
+ * {@code vacation.structured-output.max-retries} times.
+ * <p>
+ * Metrics: {@code vacation.structured.output{mode, result}} with result {@code parsed} (bound as
+ * is, fences and prose around the JSON aside), {@code repaired} (bound after repair: a retry
+ * avoided), {@code retried} (asked again) or {@code failed} (gave up).
+ */
+@Component
+public class ItineraryGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ItineraryGenerator.class);
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    static final String VACATION_REQUEST = "What's a good vacation plan while I'm in {destination} for 3 days?";
+
+    private final ChatClient chatClient;
+    private final StructuredOutputProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // Generates the Itinerary JSON schema once instead of on every call
+    private final BeanOutputConverter<Itinerary> converter = new BeanOutputConverter<>(Itinerary.class);
+    private final CompiledTemplate nativeRequest;
+    private final CompiledTemplate promptRequest;
+    private final OpenAiChatOptions nativeOptions;
+
+    private volatile boolean nativeRejected;
+
+    public ItineraryGenerator(ChatClient.Builder builder, StructuredOutputProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.chatClient = builder.build();
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nativeRequest = CompiledTemplate.compile(VACATION_REQUEST, Map.of()).requireVariables("destination");
+        this.promptRequest = CompiledTemplate.compile(VACATION_REQUEST + "\n{format}", Map.of("format", converter.getFormat()))
+                .requireVariables("destination");
+        this.nativeOptions = OpenAiChatOptions.builder()
+                .responseFormat(ResponseFormat.builder()
+                        .type(ResponseFormat.Type.JSON_SCHEMA)
+                        .jsonSchema(ResponseFormat.JsonSchema.builder()
+                                .name("itinerary")
+                                .schema(converter.getJsonSchema())
+                                .strict(true)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    /**
+     * @param destination Destination city
+     * @return Itinerary for 3 days in the destination
+     * @throws ResponseStatusException 502 if no answer could be bound
+     */
+    public Itinerary generate(String destination) {
+        Mode mode = mode();
+        for (int attempt = 0; ; attempt++) {
+            String answer;
+            try {
+                answer = call(mode, destination);
+            }
+            catch (NonTransientAiException ex) {
+                if (mode != Mode.NATIVE || !rejectsResponseFormat(ex)) {
+                    throw ex;
+                }
+                log.warn("The model rejected the JSON schema response format, switching to prompt mode", ex);
+                nativeRejected = true;
+                mode = Mode.PROMPT;
+                answer = call(mode, destination);
+            }
+            Itinerary itinerary = bind(answer, mode);
+            if (itinerary != null) {
+                return itinerary;
+            }
+            if (attempt >= properties.maxRetries()) {
+                count(mode, "failed");
+                throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "The model did not return a valid itinerary");
+            }
+            count(mode, "retried");
+        }
+    }
+
+    private Mode mode() {
+        return properties.mode() == Mode.NATIVE && !nativeRejected ? Mode.NATIVE : Mode.PROMPT;
+    }
+
+    /**
+     * Streams the itinerary as Server-Sent Events: an "activity" event for each activity as soon
+     * as the model has written it, then an "itinerary" event with the whole answer bound (and
+     * repaired if needed) like {@link #generate} does. If the streamed answer can't be bound, the
+     * terminal itinerary comes from {@link #generate} instead, so it may differ from the
+     * activities already sent. On failure an "error" event is sent and the stream ends.
+     *
+     * @param destination Destination city
+     * @return "activity" events followed by one "itinerary" or "error" event
+     */
+    public Flux<ServerSentEvent<Object>> stream(String destination) {
+        return Flux.defer(() -> stream(mode(), destination));
+    }
+
+    private Flux<ServerSentEvent<Object>> stream(Mode mode, String destination) {
+        JsonArrayStreamParser parser = new JsonArrayStreamParser();
+        StringBuilder answer = new StringBuilder();
+        Flux<ServerSentEvent<Object>> activities = request(mode, destination)
+                .stream()
+                .content()
+                .doOnNext(answer::append)
+                .concatMapIterable(parser::feed)
+                .mapNotNull(ItineraryGenerator::activity)
+                .map(activity -> event("activity", activity));
+        Mono<ServerSentEvent<Object>> itinerary = Mono.defer(() -> {
+                    Itinerary bound = bind(answer.toString(), mode);
+                    if (bound != null) {
+                        return Mono.just(bound);
+                    }
+                    // asks the model again, blocking: keep it off the stream's thread
+                    return Mono.fromCallable(() -> generate(destination)).subscribeOn(Schedulers.boundedElastic());
+                })
+                .map(bound -> event("itinerary", bound));
+        return activities.concatWith(itinerary)
+                .onErrorResume(ex -> mode == Mode.NATIVE && rejectsResponseFormat(ex), ex -> {
+                    log.warn("The model rejected the JSON schema response format, switching to prompt mode", ex);
+                    nativeRejected = true;
+                    return stream(Mode.PROMPT, destination);
+                })
+                .onErrorResume(ex -> {
+                    log.warn("Streaming the itinerary for '{}' failed", destination, ex);
+                    return Flux.just(event("error", "Error generating the itinerary."));
+                });
+    }
+
+    private String call(Mode mode, String destination) {
+        return request(mode, destination).call().content();
+    }
+
+    private ChatClient.ChatClientRequestSpec request(Mode mode, String destination) {
+        var request = chatClient.prompt();
+        if (mode == Mode.NATIVE) {
+            request.user(nativeRequest.render("destination", destination)).options(nativeOptions.copy());
+        }
+        else {
+            request.user(promptRequest.render("destination", destination));
+        }
+        return request;
+    }
+
+    /**
+     * @return Whether the provider refused the JSON schema response format; streamed requests
+     * fail with the WebClient's exception instead of Spring AI's
+     */
+    private static boolean rejectsResponseFormat(Throwable ex) {
+        String message;
+        if (ex instanceof WebClientResponseException response) {
+            message = response.getResponseBodyAsString();
+        }
+        else if (ex instanceof NonTransientAiException) {
+            message = ex.getMessage();
+        }
+        else {
+            return false;
+        }
+        return String.valueOf(message).contains("response_format");
+    }
+
+    /**
+     * @return Bound itinerary, or {@code null} if the answer can't be bound even after repair
+     */
+    Itinerary bind(String answer, Mode mode) {
+        if (answer == null) {
+            return null;
+        }
+        // fences and prose around valid JSON are not a repair
+        String value = JsonRepair.extract(answer).strip();
+        String json = JsonRepair.repair(value);
+        boolean repaired = !json.equals(value);
+        try {
+            JsonNode root = MAPPER.readTree(json);
+            if (repaired && root.path("itinerary") instanceof ArrayNode activities) {
+                // a cut-off answer leaves its last activity partial
+                activities.removeIf(activity -> !isComplete(activity));
+                if (activities.isEmpty()) {
+                    return null;
+                }
+            }
+            Itinerary itinerary = MAPPER.treeToValue(root, Itinerary.class);
+            count(mode, repaired ? "repaired" : "parsed");
+            return itinerary;
+        }
+        catch (JsonProcessingException | IllegalArgumentException ex) {
+            log.debug("Itinerary answer could not be bound: {}", answer, ex);
+            return null;
+        }
+    }
+
+    private static boolean isComplete(JsonNode activity) {
+        for (RecordComponent field : Activity.class.getRecordComponents()) {
+            if (!activity.path(field.getName()).isTextual()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Activity bound from one streamed element, or {@code null} if it is incomplete
+     */
+    private static Activity activity(String json) {
+        try {
+            return MAPPER.readValue(json, Activity.class);
+        }
+        catch (JsonProcessingException ex) {
+            log.debug("Skipping streamed activity that could not be bound: {}", json, ex);
+            return null;
+        }
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.<Object>builder(data).event(name).build();
+    }
+
+    private void count(Mode mode, String result) {
+        Counter.builder("vacation.structured.output")
+                .description("Structured itinerary answers by outcome; repaired answers avoided a retry")
+                .tag("mode", mode.name().toLowerCase())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,200 @@
+package com.omar.structured_output.output;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Tolerant clean-up of almost-JSON model answers, tried before asking the model again.
+ * <p>
+ * Fixes the mistakes seen in free-text structured answers:
+ * - Markdown code fences and prose around the JSON value
+ * - Trailing commas before {@code }} or {@code ]}
+ * - Output cut off mid-value (length limit, dropped stream): the unfinished member is dropped
+ *   and unclosed objects and arrays are closed
+ * <p>
+ * Everything else is copied as is, so valid JSON comes out unchanged. The result may still fail
+ * to parse (or bind) when the answer was broken in some other way.
+ * <p>
+ * The value starts at the first '{', or at the first '[' opening an array of objects
+ * (or an empty one), so a bracket in the prose before it ("Here is your [3-day] plan") is skipped.
+ */
+public final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * @param text Model answer expected to contain one JSON object or array
+     * @return The JSON value as written, without the prose and fences around it (up to the end of
+     *         the text if it is cut off), or {@code text} unchanged if it contains no JSON value
+     */
+    public static String extract(String text) {
+        int start = firstValueStart(text);
+        if (start < 0) {
+            return text;
+        }
+        // same matching as repair, which skips closers that don't match
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                }
+                else if (c == '\\') {
+                    escaped = true;
+                }
+                else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{' -> closers.push('}');
+                case '[' -> closers.push(']');
+                case '}', ']' -> {
+                    if (!closers.isEmpty() && closers.peek() == c) {
+                        closers.pop();
+                        if (closers.isEmpty()) {
+                            return text.substring(start, i + 1);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return text.substring(start);
+    }
+
+    /**
+     * @param text Model answer expected to contain one JSON object or array
+     * @return Repaired JSON, or {@code text} unchanged if it contains no JSON value
+     */
+    public static String repair(String text) {
+        int start = firstValueStart(text);
+        if (start < 0) {
+            return text;
+        }
+        StringBuilder json = new StringBuilder(text.length() + 8);
+        Deque<Character> closers = new ArrayDeque<>();
+        // per open container: where its last member starts, to drop it if it is cut off
+        Deque<Integer> memberStarts = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        boolean keyPending = false;
+        boolean stringIsKey = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                json.append(c);
+                if (escaped) {
+                    escaped = false;
+                }
+                else if (c == '\\') {
+                    escaped = true;
+                }
+                else if (c == '"') {
+                    inString = false;
+                    keyPending = stringIsKey;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringIsKey = isKeyPosition(json, closers);
+                    json.append(c);
+                }
+                case ':' -> {
+                    keyPending = false;
+                    json.append(c);
+                }
+                case ',' -> {
+                    json.append(c);
+                    if (!memberStarts.isEmpty()) {
+                        memberStarts.pop();
+                        memberStarts.push(json.length());
+                    }
+                }
+                case '{', '[' -> {
+                    closers.push(c == '{' ? '}' : ']');
+                    json.append(c);
+                    memberStarts.push(json.length());
+                }
+                case '}', ']' -> {
+                    if (closers.isEmpty() || closers.peek() != c) {
+                        continue;
+                    }
+                    dropTrailingComma(json);
+                    json.append(closers.pop());
+                    memberStarts.pop();
+                    if (closers.isEmpty()) {
+                        // the top-level value is complete; whatever follows is prose or a fence
+                        return json.toString();
+                    }
+                }
+                default -> json.append(c);
+            }
+        }
+        // cut off: drop the unfinished member, then close what is open
+        int last = lastNonWhitespace(json);
+        if (inString || keyPending || (last >= 0 && json.charAt(last) == ':')) {
+            json.setLength(memberStarts.peek());
+        }
+        while (!closers.isEmpty()) {
+            dropTrailingComma(json);
+            json.append(closers.pop());
+        }
+        return json.toString();
+    }
+
+    /**
+     * @return Whether a string starting now is an object key: first in its object or after a comma
+     */
+    private static boolean isKeyPosition(StringBuilder json, Deque<Character> closers) {
+        if (closers.isEmpty() || closers.peek() != '}') {
+            return false;
+        }
+        int last = lastNonWhitespace(json);
+        return last >= 0 && (json.charAt(last) == '{' || json.charAt(last) == ',');
+    }
+
+    private static int firstValueStart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                return i;
+            }
+            if (c == '[') {
+                int next = i + 1;
+                while (next < text.length() && Character.isWhitespace(text.charAt(next))) {
+                    next++;
+                }
+                // an array cut off right after its '[' still counts
+                if (next == text.length() || text.charAt(next) == '{' || text.charAt(next) == ']') {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void dropTrailingComma(StringBuilder json) {
+        int end = lastNonWhitespace(json);
+        if (end >= 0 && json.charAt(end) == ',') {
+            json.setLength(end);
+        }
+    }
+
+    private static int lastNonWhitespace(StringBuilder json) {
+        int i = json.length() - 1;
+        while (i >= 0 && Character.isWhitespace(json.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,27 @@
+package com.omar.structured_output.output;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * How {@link ItineraryGenerator} gets JSON out of the model.
+ * <p>
+ * Usage in application.yaml:
+ *   vacation:
+ *     structured-output:
+ *       mode: native
+ *       max-retries: 1
+ *
+ * @param mode       {@code native} sends the Itinerary JSON schema as a strict {@code response_format};
+ *                   {@code prompt} appends format instructions to the prompt instead
+ * @param maxRetries Model calls repeated when an answer can't be parsed even after repair
+ */
+@ConfigurationProperties("vacation.structured-output")
+public record StructuredOutputProperties(@DefaultValue("native") Mode mode,
+                                         @DefaultValue("1") int maxRetries) {
+
+    public enum Mode {
+        NATIVE,
+        PROMPT
+    }
+}
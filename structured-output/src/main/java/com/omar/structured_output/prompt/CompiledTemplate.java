@@ -0,0 +1,161 @@
+package com.omar.structured_output.prompt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A prompt template parsed once into literal text and {@code {placeholder}} slots.
+ * <p>
+ * {@link org.springframework.ai.chat.prompt.PromptTemplate} and the ChatClient's
+ * {@code user(u -> u.text(...).param(...))} spec hand the template to StringTemplate, which
+ * parses it again on every request. Here the parsing happens once, and variables known
+ * up front (such as the output converter's format instructions) are folded into the literal
+ * text, so rendering a request only copies the literals and values into a builder sized to
+ * fit them exactly.
+ * <p>
+ * Only plain {@code {name}} placeholders are supported, which is all these prompts use;
+ * any other brace is kept as literal text. Instances are immutable and safe to share between
+ * threads.
+ */
+public final class CompiledTemplate {
+
+    // literal text at even indexes, variable names at odd indexes
+    private final String[] parts;
+    private final int literalLength;
+    private final Set<String> variables;
+
+    private CompiledTemplate(String[] parts) {
+        this.parts = parts;
+        int length = 0;
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 0) {
+                length += parts[i].length();
+            }
+            else {
+                names.add(parts[i]);
+            }
+        }
+        this.literalLength = length;
+        this.variables = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * @param template Template text with {@code {name}} placeholders
+     * @param constants Values substituted now; the remaining placeholders are filled per render
+     * @return Compiled template
+     */
+    public static CompiledTemplate compile(String template, Map<String, ?> constants) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(template.length());
+        int last = 0;
+        int open = template.indexOf('{');
+        while (open >= 0) {
+            int close = placeholderEnd(template, open);
+            if (close < 0) {
+                open = template.indexOf('{', open + 1);
+                continue;
+            }
+            literal.append(template, last, open);
+            String name = template.substring(open + 1, close);
+            Object constant = constants.get(name);
+            if (constant != null) {
+                literal.append(constant);
+            }
+            else {
+                parts.add(literal.toString());
+                parts.add(name);
+                literal.setLength(0);
+            }
+            last = close + 1;
+            open = template.indexOf('{', last);
+        }
+        literal.append(template, last, template.length());
+        parts.add(literal.toString());
+        return new CompiledTemplate(parts.toArray(String[]::new));
+    }
+
+    /**
+     * @return Index of the {@code }} closing a valid placeholder opened at {@code open}, or -1
+     */
+    private static int placeholderEnd(String template, int open) {
+        int i = open + 1;
+        if (i >= template.length() || !isNameStart(template.charAt(i))) {
+            return -1;
+        }
+        for (i++; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '}') {
+                return i;
+            }
+            if (!isNameStart(c) && (c < '0' || c > '9')) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    /**
+     * @return Names of the placeholders left open at compile time, in order of first use
+     */
+    public Set<String> variables() {
+        return variables;
+    }
+
+    /**
+     * Checks the template leaves exactly the given placeholders open, so a typo in a template
+     * or a forgotten constant fails at startup instead of on the first request.
+     *
+     * @return This template
+     * @throws IllegalStateException if the open placeholders differ
+     */
+    public CompiledTemplate requireVariables(String... names) {
+        if (!variables.equals(Set.of(names))) {
+            throw new IllegalStateException("Template expects variables " + Set.of(names)
+                    + " but leaves " + variables + " open");
+        }
+        return this;
+    }
+
+    /**
+     * Renders a template with a single remaining variable.
+     */
+    public String render(String name, String value) {
+        if (parts.length == 3 && parts[1].equals(name) && value != null) {
+            return new StringBuilder(literalLength + value.length())
+                    .append(parts[0]).append(value).append(parts[2]).toString();
+        }
+        return render(Map.of(name, value));
+    }
+
+    /**
+     * @param variables Values of the placeholders left open at compile time
+     * @return Rendered text
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public String render(Map<String, ?> variables) {
+        String[] values = new String[parts.length];
+        int length = literalLength;
+        for (int i = 1; i < parts.length; i += 2) {
+            Object value = variables.get(parts[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for template variable '" + parts[i] + "'");
+            }
+            values[i] = value.toString();
+            length += values[i].length();
+        }
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < parts.length; i++) {
+            text.append(i % 2 == 0 ? parts[i] : values[i]);
+        }
+        return text.toString();
+    }
+}
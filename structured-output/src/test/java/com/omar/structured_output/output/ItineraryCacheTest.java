@@ -0,0 +1,110 @@
+package com.omar.structured_output.output;
+
+import com.omar.structured_output.model.Activity;
+import com.omar.structured_output.model.Itinerary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class ItineraryCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger generations = new AtomicInteger();
+    private final Function<String, Itinerary> generate = destination -> new Itinerary(List.of(
+            new Activity("Visit " + generations.incrementAndGet(), destination, "Day 1", "10:00")));
+
+    @Test
+    void spellingsOfTheSameDestinationShareOneKey() {
+        assertThat(ItineraryCache.normalize("Cleveland, OH")).isEqualTo("cleveland ohio");
+        assertThat(ItineraryCache.normalize("  cleveland   ohio.")).isEqualTo("cleveland ohio");
+        assertThat(ItineraryCache.normalize("St. Louis, MO")).isEqualTo(ItineraryCache.normalize("st louis missouri"));
+        assertThat(ItineraryCache.normalize("Montréal")).isEqualTo("montreal");
+        assertThat(ItineraryCache.normalize("Al")).isEqualTo("al");
+    }
+
+    @Test
+    void repeatedDestinationsAreServedFromCache() {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+
+        var first = cache.get("Cleveland, OH", generate);
+        assertThat(cache.get("cleveland ohio", generate)).isSameAs(first);
+        assertThat(generations).hasValue(1);
+        assertThat(requests("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void staleItineraryIsServedWhileANewOneIsGenerated() {
+        var cache = cache(Duration.ZERO, Duration.ofHours(1));
+        var old = new Itinerary(List.of(new Activity("Old visit", "Cleveland", "Day 1", "09:00")));
+        cache.put("Cleveland, OH", old);
+
+        assertThat(cache.get("Cleveland Ohio", generate)).isSameAs(old);
+        await().untilAsserted(() -> assertThat(meterRegistry.find("vacation.cache.refreshes")
+                .tag("result", "success").counter()).isNotNull());
+        assertThat(cache.getIfPresent("cleveland, oh", generate).itinerary())
+                .extracting(Activity::activity).containsExactly("Visit 1");
+    }
+
+    @Test
+    void requestsWaitingOnAFailedGenerationGetItsErrorAndTheNextOneRetries() throws Exception {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+        Function<String, Itinerary> overflowing = destination -> {
+            generations.incrementAndGet();
+            await().until(() -> requests("coalesced") == 2);
+            throw new StackOverflowError("schema recursion");
+        };
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Itinerary>> requests = new ArrayList<>();
+            requests.add(executor.submit(() -> cache.get("Cleveland, OH", overflowing)));
+            await().until(() -> generations.get() == 1);
+            requests.add(executor.submit(() -> cache.get("cleveland ohio", overflowing)));
+            requests.add(executor.submit(() -> cache.get("Cleveland,  Ohio.", overflowing)));
+
+            for (Future<Itinerary> request : requests) {
+                assertThatThrownBy(() -> request.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+            }
+        }
+        assertThat(cache.getIfPresent("Cleveland, OH", generate)).isNull();
+        assertThat(cache.get("Cleveland, OH", generate).itinerary())
+                .extracting(Activity::activity).containsExactly("Visit 2");
+        assertThat(requests("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void itinerariesWithoutActivitiesAreNotCached() {
+        var cache = cache(Duration.ofHours(1), Duration.ZERO);
+        Function<String, Itinerary> empty = destination -> {
+            generations.incrementAndGet();
+            return new Itinerary(List.of());
+        };
+
+        assertThat(cache.get("Cleveland, OH", empty).itinerary()).isEmpty();
+        assertThat(cache.get("Cleveland, OH", empty).itinerary()).isEmpty();
+        cache.put("Cleveland, OH", new Itinerary(List.of()));
+
+        assertThat(generations).hasValue(2);
+        assertThat(cache.getIfPresent("Cleveland, OH", generate)).isNull();
+    }
+
+    private ItineraryCache cache(Duration ttl, Duration staleWhileRevalidate) {
+        return new ItineraryCache(new ItineraryCacheProperties(ttl, staleWhileRevalidate, 10), meterRegistry);
+    }
+
+    private double requests(String result) {
+        var counter = meterRegistry.find("vacation.cache.requests").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
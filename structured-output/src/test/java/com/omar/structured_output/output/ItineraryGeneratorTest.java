@@ -0,0 +1,134 @@
+package com.omar.structured_output.output;
+
+import com.omar.structured_output.model.Activity;
+import com.omar.structured_output.model.Itinerary;
+import com.omar.structured_output.output.StructuredOutputProperties.Mode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.ResponseFormat;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItineraryGeneratorTest {
+
+    private static final String VALID = """
+            {"itinerary": [{"activity": "Rock Hall", "location": "Cleveland", "day": "Day 1", "time": "10:00"}]}
+            """;
+
+    private final ChatModel chatModel = mock(ChatModel.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void nativeModeSendsStrictSchemaWithoutFormatInstructions() {
+        when(chatModel.call(any(Prompt.class))).thenReturn(answer(VALID));
+
+        var itinerary = generator(Mode.NATIVE, 1).generate("Cleveland, OH");
+
+        assertThat(itinerary.itinerary()).containsExactly(new Activity("Rock Hall", "Cleveland", "Day 1", "10:00"));
+        var sent = ArgumentCaptor.forClass(Prompt.class);
+        verify(chatModel).call(sent.capture());
+        assertThat(sent.getValue().getUserMessage().getText())
+                .isEqualTo("What's a good vacation plan while I'm in Cleveland, OH for 3 days?");
+        var format = ((OpenAiChatOptions) sent.getValue().getOptions()).getResponseFormat();
+        assertThat(format.getType()).isEqualTo(ResponseFormat.Type.JSON_SCHEMA);
+        assertThat(format.getJsonSchema().getStrict()).isTrue();
+        assertThat(count("native", "parsed")).isEqualTo(1);
+    }
+
+    @Test
+    void repairsMalformedAnswerInsteadOfRetrying() {
+        when(chatModel.call(any(Prompt.class))).thenReturn(answer("""
+                Sure! {"itinerary": [{"activity": "Rock Hall", "location": "Cleveland", "day": "Day 1", "time": "10:00"},
+                {"activity": "West Side Market", "location": "Ohio City", "da"""));
+
+        var itinerary = generator(Mode.PROMPT, 1).generate("Cleveland, OH");
+
+        assertThat(itinerary.itinerary()).extracting(Activity::activity).containsExactly("Rock Hall");
+        verify(chatModel, times(1)).call(any(Prompt.class));
+        assertThat(count("prompt", "repaired")).isEqualTo(1);
+    }
+
+    @Test
+    void retriesUnrepairableAnswersThenGivesUp() {
+        when(chatModel.call(any(Prompt.class))).thenReturn(answer("I don't know"), answer(VALID));
+
+        assertThat(generator(Mode.PROMPT, 1).generate("Cleveland, OH").itinerary()).hasSize(1);
+        assertThat(count("prompt", "retried")).isEqualTo(1);
+
+        when(chatModel.call(any(Prompt.class))).thenReturn(answer("I don't know"));
+        assertThatThrownBy(() -> generator(Mode.PROMPT, 1).generate("Cleveland, OH"))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(count("prompt", "failed")).isEqualTo(1);
+    }
+
+    @Test
+    void streamsEachActivityThenTheValidatedItinerary() {
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.just(
+                        "```json\n{\"itinerary\": [{\"activity\": \"Rock Hall\", \"location\": \"Cleve",
+                        "land\", \"day\": \"Day 1\", \"time\": \"10:00\"}, {\"activity\": \"West Side Market\", ",
+                        "\"location\": \"Ohio City\", \"day\": \"Day 1\", \"time\": \"13:00\"}]}\n```")
+                .map(ItineraryGeneratorTest::answer));
+
+        var events = generator(Mode.PROMPT, 1).stream("Cleveland, OH").collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("activity", "activity", "itinerary");
+        assertThat(events.get(0).data()).isEqualTo(new Activity("Rock Hall", "Cleveland", "Day 1", "10:00"));
+        assertThat(((Itinerary) events.get(2).data()).itinerary()).extracting(Activity::activity)
+                .containsExactly("Rock Hall", "West Side Market");
+        assertThat(count("prompt", "parsed")).isEqualTo(1);
+    }
+
+    @Test
+    void fencedValidAnswerIsParsedNotRepaired() {
+        when(chatModel.call(any(Prompt.class))).thenReturn(answer("Here is your [3-day] plan:\n```json\n"
+                + VALID.strip() + "\n```\nEnjoy!"));
+
+        var itinerary = generator(Mode.PROMPT, 1).generate("Cleveland, OH");
+
+        assertThat(itinerary.itinerary()).containsExactly(new Activity("Rock Hall", "Cleveland", "Day 1", "10:00"));
+        assertThat(count("prompt", "parsed")).isEqualTo(1);
+        assertThat(count("prompt", "repaired")).isZero();
+    }
+
+    @Test
+    void streamEndsWithErrorEventWhenTheModelFails() {
+        when(chatModel.stream(any(Prompt.class))).thenReturn(Flux.error(new IllegalStateException("boom")));
+
+        var events = generator(Mode.PROMPT, 1).stream("Cleveland, OH").collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("error");
+    }
+
+    private ItineraryGenerator generator(Mode mode, int maxRetries) {
+        return new ItineraryGenerator(ChatClient.builder(chatModel), new StructuredOutputProperties(mode, maxRetries),
+                meterRegistry);
+    }
+
+    private double count(String mode, String result) {
+        var counter = meterRegistry.find("vacation.structured.output").tag("mode", mode).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static ChatResponse answer(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -0,0 +1,33 @@
+package com.omar.structured_output.output;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonArrayStreamParserTest {
+
+    @Test
+    void emitsEachActivityOfTheWrappedArrayAsItCloses() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("```json\n{\"itinerary\": [{\"activity\": \"Rock [Hall]\"")).isEmpty();
+        assertThat(parser.feed("}, {\"activity\": \"Zoo\"}")).containsExactly("{\"activity\": \"Rock [Hall]\"}", "{\"activity\": \"Zoo\"}");
+        assertThat(parser.feed("]}\n```")).isEmpty();
+    }
+
+    @Test
+    void ignoresBracketsInProseBeforeTheArray() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("Here is your [3-day] plan, see [1]: {\"itinerary\": [")).isEmpty();
+        assertThat(parser.feed("\n  ")).isEmpty();
+        assertThat(parser.feed("{\"activity\": \"Museum\"}]}")).containsExactly("{\"activity\": \"Museum\"}");
+    }
+
+    @Test
+    void emptyArrayEndsTheStream() {
+        var parser = new JsonArrayStreamParser();
+
+        assertThat(parser.feed("{\"itinerary\": [ ]} then [{\"activity\": \"Museum\"}]")).isEmpty();
+    }
+}
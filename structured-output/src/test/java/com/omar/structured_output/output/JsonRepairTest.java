@@ -0,0 +1,55 @@
+package com.omar.structured_output.output;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonRepairTest {
+
+    @Test
+    void validJsonIsUnchanged() {
+        String json = "{\"itinerary\": [{\"activity\": \"Say \\\"hi\\\" {x}\", \"day\": \"Day 1\"}]}";
+
+        assertThat(JsonRepair.repair(json)).isEqualTo(json);
+    }
+
+    @Test
+    void stripsProseFencesAndTrailingCommas() {
+        String answer = """
+                Here is your plan:
+                ```json
+                {"itinerary": [{"activity": "Museum", "day": "Day 1",}, ],}
+                ```
+                Enjoy!""";
+
+        assertThat(JsonRepair.repair(answer)).isEqualTo("{\"itinerary\": [{\"activity\": \"Museum\", \"day\": \"Day 1\"}]}");
+    }
+
+    @Test
+    void dropsTheUnfinishedMemberOfCutOffOutput() {
+        assertThat(JsonRepair.repair("{\"itinerary\": [{\"activity\": \"Museum\"}, {\"activity\": \"Zoo\", \"loc"))
+                .isEqualTo("{\"itinerary\": [{\"activity\": \"Museum\"}, {\"activity\": \"Zoo\"}]}");
+        assertThat(JsonRepair.repair("{\"itinerary\": [{\"activity\": \"Museum\", \"day\": \"Da"))
+                .isEqualTo("{\"itinerary\": [{\"activity\": \"Museum\"}]}");
+        assertThat(JsonRepair.repair("{\"itinerary\": [{\"activity\": \"Museum\", \"day\":"))
+                .isEqualTo("{\"itinerary\": [{\"activity\": \"Museum\"}]}");
+        assertThat(JsonRepair.repair("{\"itinerary\": [{\"activity\": \"Museum\"},"))
+                .isEqualTo("{\"itinerary\": [{\"activity\": \"Museum\"}]}");
+    }
+
+    @Test
+    void bracketsInProseDoNotStartTheValue() {
+        String answer = "Your [3-day] plan, see [1]: [{\"activity\": \"Museum\"},] Enjoy [it]!";
+
+        assertThat(JsonRepair.extract(answer)).isEqualTo("[{\"activity\": \"Museum\"},]");
+        assertThat(JsonRepair.repair(answer)).isEqualTo("[{\"activity\": \"Museum\"}]");
+        assertThat(JsonRepair.repair("Plan [A]: []")).isEqualTo("[]");
+    }
+
+    @Test
+    void extractKeepsTheValueAsWritten() {
+        assertThat(JsonRepair.extract("```json\n{\"a\": \"}\", \"b\": [1,]}\n```")).isEqualTo("{\"a\": \"}\", \"b\": [1,]}");
+        assertThat(JsonRepair.extract("Sure! {\"a\": [1, 2")).isEqualTo("{\"a\": [1, 2");
+        assertThat(JsonRepair.extract("I don't know")).isEqualTo("I don't know");
+    }
+}
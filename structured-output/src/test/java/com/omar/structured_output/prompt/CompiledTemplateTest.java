@@ -0,0 +1,41 @@
+package com.omar.structured_output.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.template.st.StTemplateRenderer;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    private static final String VACATION = "What's a good vacation plan while I'm in {destination} for 3 days?";
+
+    @Test
+    void rendersLikeChatClient() {
+        var compiled = CompiledTemplate.compile(VACATION, Map.of()).requireVariables("destination");
+
+        assertThat(compiled.render("destination", "Cleveland, OH"))
+                .isEqualTo(StTemplateRenderer.builder().build().apply(VACATION, Map.of("destination", "Cleveland, OH")));
+    }
+
+    @Test
+    void foldsConstantsAndKeepsOtherBracesLiteral() {
+        var compiled = CompiledTemplate.compile("{ \"a\": {1} } {topic}{ {format}", Map.of("format", "{\"json\": true}"));
+
+        assertThat(compiled.variables()).containsExactly("topic");
+        assertThat(compiled.render("topic", "Java")).isEqualTo("{ \"a\": {1} } Java{ {\"json\": true}");
+    }
+
+    @Test
+    void missingVariablesFail() {
+        var compiled = CompiledTemplate.compile("{greeting}, {name}!", Map.of());
+
+        assertThatThrownBy(() -> compiled.render("greeting", "Hello"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> compiled.requireVariables("greeting"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("name");
+    }
+}
@@ -0,0 +1,62 @@
+package com.omar.structured_output.prompt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ai.template.st.StTemplateRenderer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of rendering the {@code VacationPlanController} user prompt the way the
+ * ChatClient renders {@code user(u -> u.text(...).param(...))} (StringTemplate, parsed per
+ * request) versus a {@link CompiledTemplate}.
+ * <p>
+ * Run {@link #main} from the IDE, or with:
+ * {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.omar.structured_output.prompt.PromptRenderingBenchmark"}
+ * (append JMH options such as {@code -prof gc} for allocation per operation)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptRenderingBenchmark {
+
+    private static final String TEMPLATE = "What's a good vacation plan while I'm in {destination} for 3 days?";
+
+    private final StTemplateRenderer renderer = StTemplateRenderer.builder().build();
+    private final CompiledTemplate compiled =
+            CompiledTemplate.compile(TEMPLATE, Map.of()).requireVariables("destination");
+
+    @Benchmark
+    public String chatClientParams() {
+        return renderer.apply(TEMPLATE, Map.of("destination", "Cleveland, OH"));
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return compiled.render("destination", "Cleveland, OH");
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(PromptRenderingBenchmark.class.getName())
+                .build()).run();
+    }
+}
@@ -1,9 +1,13 @@
 package com.omar.tool_calling;
 
+import com.omar.tool_calling.parallel.ParallelToolCallingProperties;
+import com.omar.tool_calling.weather.WeatherCacheProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties({ParallelToolCallingProperties.class, WeatherCacheProperties.class})
 public class ToolCallingApplication {
 
 	public static void main(String[] args) {
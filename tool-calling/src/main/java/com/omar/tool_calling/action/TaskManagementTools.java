@@ -85,15 +85,13 @@ public class TaskManagementTools {
      */
     @Tool(description = "Update task status by task ID")
     public TaskResult updateStatus(Long taskId, TaskStatus status) {
-        Task existingTask = tasks.get(taskId);
-        if (existingTask == null) {
+        // atomic per task, so a concurrent reassignment is not lost
+        Task updatedTask = tasks.computeIfPresent(taskId, (id, existingTask) -> new Task(existingTask.id(),
+                existingTask.title(), existingTask.description(), existingTask.assignee(), status));
+        if (updatedTask == null) {
             return new TaskResult(taskId, "", "ERROR", "", "Task not found");
         }
 
-        Task updatedTask = new Task(existingTask.id(), existingTask.title(),
-                existingTask.description(), existingTask.assignee(), status);
-        tasks.put(taskId, updatedTask);
-
         // In real implementation: update database, trigger workflow, send notifications
         return new TaskResult(taskId, updatedTask.title(), status.toString(),
                 updatedTask.assignee(), "Task status updated to " + status);
@@ -114,15 +112,13 @@ public class TaskManagementTools {
      */
     @Tool(description = "Assign or reassign a task to a different person")
     public TaskResult assignTask(Long taskId, String newAssignee) {
-        Task existingTask = tasks.get(taskId);
-        if (existingTask == null) {
+        // atomic per task, so a concurrent status update is not lost
+        Task updatedTask = tasks.computeIfPresent(taskId, (id, existingTask) -> new Task(existingTask.id(),
+                existingTask.title(), existingTask.description(), newAssignee, existingTask.status()));
+        if (updatedTask == null) {
             return new TaskResult(taskId, "", "ERROR", "", "Task not found");
         }
 
-        Task updatedTask = new Task(existingTask.id(), existingTask.title(),
-                existingTask.description(), newAssignee, existingTask.status());
-        tasks.put(taskId, updatedTask);
-
         // In real implementation: update database, send notification to new assignee
         return new TaskResult(taskId, updatedTask.title(), updatedTask.status().toString(),
                 newAssignee, "Task reassigned to " + newAssignee);
@@ -4,9 +4,10 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * 👥 Employee Service - In-Memory Employee & Leave Management
@@ -26,7 +27,7 @@ import java.util.Map;
  * - "Apply leave for emp1002 tomorrow"
  * <p>
  * ⚠️ Note:
- * - Data is stored in memory (HashMap)
+ * - Data is stored in memory (ConcurrentHashMap: the AI may call several tools at once)
  * - No persistence (resets on application restart)
  * - Suitable for demos, tutorials, and AI experimentation
  */
@@ -42,7 +43,7 @@ public class EmployeeService {
      *           - Caching layer (@Cacheable annotations)
      *           - External HR system integration
      */
-    private static final Map<String, Employee> employeeTable = new HashMap<>();
+    private static final Map<String, Employee> employeeTable = new ConcurrentHashMap<>();
 
     /**
      * 📅 In-memory leave tracking (Date → List of EmployeeIDs on leave)
@@ -54,7 +55,7 @@ public class EmployeeService {
      *           - Leave type tracking (sick, vacation, personal)
      *           - Approval workflow states
      */
-    private static final Map<LocalDate, List<String>> employeeLeavesTable = new HashMap<>();
+    private static final Map<LocalDate, List<String>> employeeLeavesTable = new ConcurrentHashMap<>();
 
 
     /**
@@ -135,12 +136,8 @@ public class EmployeeService {
      * @param date  Leave date
      */
     void applyLeave(String empId, LocalDate date) {
-        List<String> empIds = employeeLeavesTable.get(date);
-        if(empIds == null) {
-            empIds = List.of(empId);
-        } else {
-            empIds.add(empId);
-        }
-        employeeLeavesTable.put(date, empIds);
+        // atomic per date, so leaves applied by concurrent tool calls are not lost
+        employeeLeavesTable.merge(date, List.of(empId),
+                (empIds, added) -> Stream.concat(empIds.stream(), added.stream()).toList());
     }
 }
\ No newline at end of file
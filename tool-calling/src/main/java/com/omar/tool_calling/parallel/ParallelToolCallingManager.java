@@ -0,0 +1,197 @@
+package com.omar.tool_calling.parallel;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the tool calls the model asks for in one response concurrently, on virtual threads.
+ * <p>
+ * Spring AI's {@link DefaultToolCallingManager} executes them one after another, so a response
+ * asking for three employees or forecasts for several places costs the sum of the tools' times
+ * before the next round trip. This manager replaces it for every {@code ChatClient} of the app
+ * ({@link com.omar.tool_calling.employee.EmployeeTools}, {@link com.omar.tool_calling.weather.WeatherTools},
+ * {@link com.omar.tool_calling.action.TaskManagementTools}) and hands each call to the default
+ * manager on its own virtual thread, so the turn takes as long as the slowest tool:
+ * - At most {@code tools.parallel.max-concurrency} calls of a response run at once
+ * - Calls still running after {@code tools.parallel.timeout} are cancelled and answered with a
+ *   timeout message, so the model can still reply
+ * - Tool responses are sent back in the order the model asked for them
+ * <p>
+ * Tool resolution, error handling and observations stay those of the default manager. The caller's
+ * current observation is reopened on each virtual thread, so every tool call observation still
+ * has the chat model's observation as its parent. Tools must be safe to call concurrently.
+ */
+@Component
+public class ParallelToolCallingManager implements ToolCallingManager, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelToolCallingManager.class);
+
+    private final ToolCallingManager delegate;
+    private final ParallelToolCallingProperties properties;
+    private final ObservationRegistry observationRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public ParallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                      ObjectProvider<ObservationRegistry> observationRegistry,
+                                      ParallelToolCallingProperties properties) {
+        this(toolCallbackResolver, toolExecutionExceptionProcessor,
+                observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP), properties);
+    }
+
+    private ParallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                       ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                       ObservationRegistry observationRegistry,
+                                       ParallelToolCallingProperties properties) {
+        this(DefaultToolCallingManager.builder()
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .observationRegistry(observationRegistry)
+                .build(), observationRegistry, properties);
+    }
+
+    ParallelToolCallingManager(ToolCallingManager delegate, ObservationRegistry observationRegistry,
+                               ParallelToolCallingProperties properties) {
+        this.delegate = delegate;
+        this.observationRegistry = observationRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElse(null);
+        if (!properties.enabled() || assistantMessage == null || assistantMessage.getToolCalls().size() < 2) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        Semaphore permits = new Semaphore(properties.maxConcurrency());
+        // scopes are thread-local, so the virtual threads would otherwise start without a parent
+        Observation parent = observationRegistry.getCurrentObservation();
+        List<Future<ToolExecutionResult>> results = new ArrayList<>(toolCalls.size());
+        for (AssistantMessage.ToolCall toolCall : toolCalls) {
+            // one response per call, so the default manager runs just that call
+            ChatResponse single = new ChatResponse(List.of(new Generation(AssistantMessage.builder()
+                    .content(assistantMessage.getText())
+                    .properties(assistantMessage.getMetadata())
+                    .toolCalls(List.of(toolCall))
+                    .build())));
+            results.add(executor.submit(() -> {
+                permits.acquire();
+                try (Observation.Scope scope = parent == null ? null : parent.openScope()) {
+                    return delegate.executeToolCalls(prompt, single);
+                }
+                finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        long deadline = System.nanoTime() + properties.timeout().toNanos();
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        try {
+            for (int i = 0; i < toolCalls.size(); i++) {
+                AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+                ToolExecutionResult result = await(results.get(i), deadline, toolCall);
+                if (result == null) {
+                    responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(),
+                            "Tool call timed out after " + properties.timeout().toMillis() + " ms"));
+                    returnDirect = false;
+                    continue;
+                }
+                List<Message> history = result.conversationHistory();
+                if (!(history.get(history.size() - 1) instanceof ToolResponseMessage toolResponse)) {
+                    throw new IllegalStateException("No tool response for tool call " + toolCall.name());
+                }
+                responses.addAll(toolResponse.getResponses());
+                returnDirect &= result.returnDirect();
+            }
+        }
+        catch (RuntimeException ex) {
+            // a failed call fails the turn, don't leave the others running
+            results.forEach(result -> result.cancel(true));
+            throw ex;
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(ToolResponseMessage.builder().responses(responses).metadata(Map.of()).build());
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    /**
+     * @return Result of the call, or {@code null} if it was cancelled at the deadline
+     */
+    private static ToolExecutionResult await(Future<ToolExecutionResult> result, long deadline,
+                                             AssistantMessage.ToolCall toolCall) {
+        try {
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException | CancellationException ex) {
+            result.cancel(true);
+            log.warn("Tool call {} ({}) timed out", toolCall.name(), toolCall.id());
+            return null;
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Tool call " + toolCall.name() + " failed", ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new IllegalStateException("Interrupted while waiting for tool call " + toolCall.name(), ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
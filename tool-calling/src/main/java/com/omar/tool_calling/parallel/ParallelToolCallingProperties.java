@@ -0,0 +1,28 @@
+package com.omar.tool_calling.parallel;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How {@link ParallelToolCallingManager} runs the tool calls of one model response.
+ * <p>
+ * Usage in application.yaml:
+ *   tools:
+ *     parallel:
+ *       enabled: true
+ *       max-concurrency: 4
+ *       timeout: 30s
+ *
+ * @param enabled        Run the tool calls of a response concurrently; {@code false} runs them
+ *                       one after another like Spring AI's default manager
+ * @param maxConcurrency Tool calls of one response running at the same time
+ * @param timeout        Time the tool calls of one response may take together; calls still
+ *                       running then are cancelled and reported to the model as timed out
+ */
+@ConfigurationProperties("tools.parallel")
+public record ParallelToolCallingProperties(@DefaultValue("true") boolean enabled,
+                                            @DefaultValue("4") int maxConcurrency,
+                                            @DefaultValue("30s") Duration timeout) {
+}
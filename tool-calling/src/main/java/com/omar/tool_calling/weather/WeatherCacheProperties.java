@@ -0,0 +1,24 @@
+package com.omar.tool_calling.weather;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the {@link WeatherHttpCache} behind {@link WeatherTools}.
+ * <p>
+ * Usage in application.yaml:
+ *   weather:
+ *     cache:
+ *       points-ttl: 7d
+ *       max-entries: 1000
+ *
+ * @param pointsTtl  How long a {@code /points} lookup (coordinates to forecast office and grid)
+ *                   is reused; these mappings almost never change
+ * @param maxEntries Responses kept before the least recently used ones are dropped
+ */
+@ConfigurationProperties("weather.cache")
+public record WeatherCacheProperties(@DefaultValue("7d") Duration pointsTtl,
+                                     @DefaultValue("1000") int maxEntries) {
+}
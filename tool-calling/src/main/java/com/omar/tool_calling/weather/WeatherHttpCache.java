@@ -0,0 +1,200 @@
+package com.omar.tool_calling.weather;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Client-side cache for the api.weather.gov responses of {@link WeatherTools}.
+ * <p>
+ * Two kinds of entries:
+ * - {@link #remember}: kept for a fixed TTL whatever the server says, for lookups that almost
+ *   never change (the {@code /points} mapping of coordinates to a forecast grid)
+ * - {@link #get}: kept as long as the response's {@code Cache-Control: max-age} (or
+ *   {@code Expires}) allows; once stale, the next request revalidates it with
+ *   {@code If-None-Match}/{@code If-Modified-Since} and a {@code 304 Not Modified} reuses the
+ *   cached body. {@code no-store} responses are not kept, {@code no-cache} ones are always
+ *   revalidated.
+ * <p>
+ * Bounded by {@code weather.cache.max-entries}, least recently used first.
+ * <p>
+ * Metrics: {@code weather.cache.requests{cache, result=hit|revalidated|miss}}; hits skip the
+ * request, revalidations skip the body.
+ */
+class WeatherHttpCache {
+
+    private final RestClient restClient;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<String, Cached> entries;
+
+    WeatherHttpCache(RestClient restClient, WeatherCacheProperties properties, MeterRegistry meterRegistry,
+                     Clock clock) {
+        this.restClient = restClient;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    /**
+     * @param cache  Cache name, used in keys and metrics
+     * @param key    Key within the cache
+     * @param ttl    How long a loaded value is reused
+     * @param loader Loads the value on a miss
+     * @return Cached or freshly loaded value
+     */
+    <T> T remember(String cache, String key, Duration ttl, Supplier<T> loader) {
+        String cacheKey = cache + " " + key;
+        Cached cached = lookup(cacheKey);
+        if (cached != null && clock.millis() < cached.expiresAt) {
+            count(cache, "hit");
+            @SuppressWarnings("unchecked")
+            T body = (T) cached.body;
+            return body;
+        }
+        count(cache, "miss");
+        T body = loader.get();
+        store(cacheKey, new Cached(body, null, -1, clock.millis() + ttl.toMillis()));
+        return body;
+    }
+
+    /**
+     * GETs the resource without caching, e.g. to load a {@link #remember} entry.
+     */
+    <T> T fetch(Class<T> type, String uri, Object... uriVariables) {
+        return restClient.get().uri(uri, uriVariables).retrieve().body(type);
+    }
+
+    /**
+     * GETs the resource, honoring the response's caching headers.
+     *
+     * @param cache        Cache name, used in keys and metrics
+     * @param type         Response body type
+     * @param uri          URI template, relative to the base URL or absolute
+     * @param uriVariables Values of the template's variables
+     * @return Cached, revalidated or freshly fetched body
+     */
+    <T> T get(String cache, Class<T> type, String uri, Object... uriVariables) {
+        String cacheKey = cache + " " + UriComponentsBuilder.fromUriString(uri).buildAndExpand(uriVariables).toUriString();
+        Cached cached = lookup(cacheKey);
+        if (cached != null && clock.millis() < cached.expiresAt) {
+            count(cache, "hit");
+            return type.cast(cached.body);
+        }
+        ResponseEntity<T> response = restClient.get()
+                .uri(uri, uriVariables)
+                .headers(headers -> {
+                    if (cached != null && cached.etag != null) {
+                        headers.setIfNoneMatch(cached.etag);
+                    }
+                    if (cached != null && cached.lastModified >= 0) {
+                        headers.setIfModifiedSince(cached.lastModified);
+                    }
+                })
+                .retrieve()
+                .toEntity(type);
+        HttpHeaders headers = response.getHeaders();
+        if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            count(cache, "revalidated");
+            String etag = headers.getETag() != null ? headers.getETag() : cached.etag;
+            long lastModified = headers.getLastModified() >= 0 ? headers.getLastModified() : cached.lastModified;
+            keep(cacheKey, cached.body, etag, lastModified, headers);
+            return type.cast(cached.body);
+        }
+        count(cache, "miss");
+        keep(cacheKey, response.getBody(), headers.getETag(), headers.getLastModified(), headers);
+        return response.getBody();
+    }
+
+    private void keep(String cacheKey, Object body, String etag, long lastModified, HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl() == null ? "" : headers.getCacheControl().toLowerCase(Locale.ROOT);
+        long freshFor = freshFor(cacheControl, headers);
+        if (body == null || cacheControl.contains("no-store") || (freshFor <= 0 && etag == null && lastModified < 0)) {
+            synchronized (entries) {
+                entries.remove(cacheKey);
+            }
+            return;
+        }
+        store(cacheKey, new Cached(body, etag, lastModified, clock.millis() + freshFor));
+    }
+
+    /**
+     * @return Milliseconds the response stays fresh, from {@code max-age} minus {@code Age}, or
+     * {@code Expires} minus {@code Date}; 0 if it must be revalidated
+     */
+    private long freshFor(String cacheControl, HttpHeaders headers) {
+        if (cacheControl.contains("no-cache")) {
+            return 0;
+        }
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.strip();
+            if (directive.startsWith("max-age=")) {
+                try {
+                    long maxAge = Long.parseLong(directive.substring("max-age=".length()).replace("\"", ""));
+                    return Math.max(0, (maxAge - age(headers)) * 1000);
+                }
+                catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        if (headers.getExpires() >= 0) {
+            long date = headers.getDate() >= 0 ? headers.getDate() : clock.millis();
+            return Math.max(0, headers.getExpires() - date);
+        }
+        return 0;
+    }
+
+    private static long age(HttpHeaders headers) {
+        try {
+            String age = headers.getFirst(HttpHeaders.AGE);
+            return age == null ? 0 : Long.parseLong(age.strip());
+        }
+        catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private Cached lookup(String cacheKey) {
+        synchronized (entries) {
+            return entries.get(cacheKey);
+        }
+    }
+
+    private void store(String cacheKey, Cached cached) {
+        synchronized (entries) {
+            entries.put(cacheKey, cached);
+        }
+    }
+
+    private void count(String cache, String result) {
+        Counter.builder("weather.cache.requests")
+                .description("api.weather.gov lookups by cache outcome; hits skip the request, revalidations the body")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @param expiresAt Epoch millis until which the body is served without asking the server
+     */
+    private record Cached(Object body, String etag, long lastModified, long expiresAt) {
+    }
+}
@@ -2,28 +2,43 @@ package com.omar.tool_calling.weather;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
+import java.time.Clock;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Weather tools backed by api.weather.gov.
+ * <p>
+ * Responses go through a {@link WeatherHttpCache}: the {@code /points} lookup is reused for
+ * {@code weather.cache.points-ttl} per coordinates rounded to 4 decimals (the precision the API
+ * works with), forecasts and alerts for as long as their {@code Cache-Control}/{@code Expires}
+ * headers allow, then revalidated with their {@code ETag}/{@code Last-Modified}.
+ */
 @Service
 public class WeatherTools {
 
     private static final String BASE_URL = "https://api.weather.gov";
-    private final RestClient restClient;
+    private final WeatherHttpCache cache;
+    private final WeatherCacheProperties cacheProperties;
 
-    public WeatherTools(RestClient.Builder builder) {
-        this.restClient = builder
+    public WeatherTools(RestClient.Builder builder, WeatherCacheProperties cacheProperties,
+                        MeterRegistry meterRegistry) {
+        RestClient restClient = builder
                 .baseUrl(BASE_URL)
                 .defaultHeader("Accept", "application/geo+json")
                 .defaultHeader("User-Agent", "WeatherApiClient/1.0 (your@email.com)")
                 .build();
+        this.cache = new WeatherHttpCache(restClient, cacheProperties, meterRegistry, Clock.systemUTC());
+        this.cacheProperties = cacheProperties;
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -76,12 +91,12 @@ public class WeatherTools {
     @Tool(description = "Get weather forecast for a specific latitude/longitude")
     public String getWeatherForecastByLocation(double latitude, double longitude) {
 
-        var points = restClient.get()
-                .uri("/points/{latitude},{longitude}", latitude, longitude)
-                .retrieve()
-                .body(Points.class);
+        double lat = round(latitude);
+        double lon = round(longitude);
+        var points = cache.remember("points", lat + "," + lon, cacheProperties.pointsTtl(),
+                () -> cache.fetch(Points.class, "/points/{latitude},{longitude}", lat, lon));
 
-        var forecast = restClient.get().uri(points.properties().forecast()).retrieve().body(Forecast.class);
+        var forecast = cache.get("forecast", Forecast.class, points.properties().forecast());
 
         String forecastText = forecast.properties().periods().stream().map(p -> {
             return String.format("""
@@ -104,7 +119,7 @@ public class WeatherTools {
      */
     @Tool(description = "Get weather alerts for a US state. Input is Two-letter US state code (e.g. CA, NY)")
     public String getAlerts(@ToolParam( description =  "Two-letter US state code (e.g. CA, NY") String state) {
-        Alert alert = restClient.get().uri("/alerts/active/area/{state}", state).retrieve().body(Alert.class);
+        Alert alert = cache.get("alerts", Alert.class, "/alerts/active/area/{state}", state.strip().toUpperCase(Locale.ROOT));
 
         return alert.features()
                 .stream()
@@ -119,4 +134,11 @@ public class WeatherTools {
                 .collect(Collectors.joining("\n"));
     }
 
-}
\ No newline at end of file
+    /**
+     * @return Coordinate rounded to the 4 decimals api.weather.gov accepts, so nearby requests
+     * share a points lookup
+     */
+    private static double round(double coordinate) {
+        return Math.round(coordinate * 10_000) / 10_000.0;
+    }
+}
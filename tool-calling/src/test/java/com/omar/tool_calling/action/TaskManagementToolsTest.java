@@ -0,0 +1,47 @@
+package com.omar.tool_calling.action;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskManagementToolsTest {
+
+    private final TaskManagementTools tools = new TaskManagementTools();
+
+    @Test
+    void concurrentUpdatesOfOneTaskKeepBothChanges() throws Exception {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1_000; i++) {
+                long taskId = tools.createTask("Review code", "PR review", "Sarah").taskId();
+                var start = new CountDownLatch(1);
+                Future<TaskResult> status = executor.submit(() -> {
+                    start.await();
+                    return tools.updateStatus(taskId, TaskStatus.COMPLETED);
+                });
+                Future<TaskResult> assignment = executor.submit(() -> {
+                    start.await();
+                    return tools.assignTask(taskId, "Ahmed");
+                });
+                start.countDown();
+                status.get(5, TimeUnit.SECONDS);
+                assignment.get(5, TimeUnit.SECONDS);
+
+                // re-applying either change reports the task as it is now
+                var task = tools.assignTask(taskId, "Ahmed");
+                assertThat(task.status()).isEqualTo("COMPLETED");
+                assertThat(task.assignee()).isEqualTo("Ahmed");
+            }
+        }
+    }
+
+    @Test
+    void updatingAMissingTaskReportsIt() {
+        assertThat(tools.updateStatus(42L, TaskStatus.COMPLETED).status()).isEqualTo("ERROR");
+        assertThat(tools.assignTask(42L, "Ahmed").message()).isEqualTo("Task not found");
+    }
+}
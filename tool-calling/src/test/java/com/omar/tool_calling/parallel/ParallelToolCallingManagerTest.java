@@ -0,0 +1,139 @@
+package com.omar.tool_calling.parallel;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.support.ToolCallbacks;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelToolCallingManagerTest {
+
+    private final SlowTools tools = new SlowTools();
+    private ParallelToolCallingManager manager;
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    @Test
+    void toolCallsOfOneResponseRunConcurrentlyInRequestOrder() {
+        manager = manager(4, Duration.ofSeconds(10));
+
+        long start = System.nanoTime();
+        var result = manager.executeToolCalls(prompt(), toolCalls(300, 100, 200));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsedMillis).isLessThan(550);
+        assertThat(tools.maxRunning).hasValue(3);
+        var toolResponse = (ToolResponseMessage) result.conversationHistory().getLast();
+        assertThat(toolResponse.getResponses()).extracting(ToolResponseMessage.ToolResponse::id)
+                .containsExactly("call-0", "call-1", "call-2");
+        assertThat(toolResponse.getResponses()).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly("\"slept 300\"", "\"slept 100\"", "\"slept 200\"");
+        assertThat(result.conversationHistory()).hasSize(3);
+    }
+
+    @Test
+    void concurrencyIsCappedAndSlowCallsTimeOut() {
+        manager = manager(2, Duration.ofMillis(400));
+
+        var result = manager.executeToolCalls(prompt(), toolCalls(100, 100, 100, 5_000));
+
+        assertThat(tools.maxRunning).hasValue(2);
+        var toolResponse = (ToolResponseMessage) result.conversationHistory().getLast();
+        assertThat(toolResponse.getResponses()).extracting(ToolResponseMessage.ToolResponse::responseData)
+                .containsExactly("\"slept 100\"", "\"slept 100\"", "\"slept 100\"", "Tool call timed out after 400 ms");
+    }
+
+    @Test
+    void toolCallObservationsKeepTheCallersObservationAsParent() {
+        List<Observation.Context> toolCalls = new CopyOnWriteArrayList<>();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStart(Observation.Context context) {
+                if (context instanceof ToolCallingObservationContext) {
+                    toolCalls.add(context);
+                }
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        manager = manager(registry, 4, Duration.ofSeconds(10));
+
+        Observation chat = Observation.start("chat", registry);
+        try (Observation.Scope scope = chat.openScope()) {
+            manager.executeToolCalls(prompt(), toolCalls(10, 10, 10));
+        }
+        finally {
+            chat.stop();
+        }
+
+        assertThat(toolCalls).hasSize(3)
+                .allSatisfy(context -> assertThat(context.getParentObservation()).isSameAs(chat));
+    }
+
+    private ParallelToolCallingManager manager(int maxConcurrency, Duration timeout) {
+        return manager(ObservationRegistry.NOOP, maxConcurrency, timeout);
+    }
+
+    private ParallelToolCallingManager manager(ObservationRegistry registry, int maxConcurrency, Duration timeout) {
+        return new ParallelToolCallingManager(DefaultToolCallingManager.builder().observationRegistry(registry).build(),
+                registry, new ParallelToolCallingProperties(true, maxConcurrency, timeout));
+    }
+
+    private Prompt prompt() {
+        return new Prompt(new UserMessage("Sleep a bit"),
+                ToolCallingChatOptions.builder().toolCallbacks(ToolCallbacks.from(tools)).build());
+    }
+
+    private static ChatResponse toolCalls(int... millis) {
+        var calls = new ArrayList<AssistantMessage.ToolCall>();
+        for (int i = 0; i < millis.length; i++) {
+            calls.add(new AssistantMessage.ToolCall("call-" + i, "function", "sleep",
+                    "{\"millis\": " + millis[i] + "}"));
+        }
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content("").toolCalls(calls).build())));
+    }
+
+    static class SlowTools {
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Tool(description = "Sleeps for the given milliseconds")
+        public String sleep(int millis) throws InterruptedException {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+                return "slept " + millis;
+            }
+            finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.omar.tool_calling.weather;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class WeatherToolsTest {
+
+    private static final String FORECAST_URL = "https://api.weather.gov/gridpoints/BOU/63,62/forecast";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestClient.Builder builder = RestClient.builder();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    private final WeatherTools weatherTools = new WeatherTools(builder,
+            new WeatherCacheProperties(Duration.ofDays(7), 100), meterRegistry);
+
+    @Test
+    void nearbyCoordinatesShareThePointsLookupAndAFreshForecast() {
+        server.expect(once(), requestTo("https://api.weather.gov/points/39.7456,-104.9925"))
+                .andRespond(withSuccess("""
+                        {"properties": {"forecast": "%s"}}""".formatted(FORECAST_URL), MediaType.APPLICATION_JSON));
+        server.expect(once(), requestTo(FORECAST_URL))
+                .andRespond(withSuccess("""
+                        {"properties": {"periods": [{"name": "Tonight", "temperature": 41, "temperatureUnit": "F"}]}}""",
+                        MediaType.APPLICATION_JSON).header(HttpHeaders.CACHE_CONTROL, "public, max-age=600"));
+
+        String first = weatherTools.getWeatherForecastByLocation(39.74561, -104.99251);
+        String second = weatherTools.getWeatherForecastByLocation(39.745612, -104.992508);
+
+        assertThat(second).isEqualTo(first).contains("Tonight:", "Temperature: 41 F");
+        server.verify();
+        assertThat(requests("points", "hit")).isEqualTo(1);
+        assertThat(requests("forecast", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    void staleAlertsAreRevalidatedWithTheirETag() {
+        server.expect(once(), requestTo("https://api.weather.gov/alerts/active/area/CO"))
+                .andRespond(withSuccess("""
+                        {"features": [{"properties": {"event": "Winter Storm Warning", "severity": "Severe"}}]}""",
+                        MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CACHE_CONTROL, "max-age=0")
+                        .header(HttpHeaders.ETAG, "\"alerts-v1\""));
+        server.expect(once(), requestTo("https://api.weather.gov/alerts/active/area/CO"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"alerts-v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED).header(HttpHeaders.CACHE_CONTROL, "max-age=0"));
+
+        String first = weatherTools.getAlerts("CO");
+        String second = weatherTools.getAlerts(" co");
+
+        assertThat(second).isEqualTo(first).contains("Event: Winter Storm Warning");
+        server.verify();
+        assertThat(requests("alerts", "miss")).isEqualTo(1);
+        assertThat(requests("alerts", "revalidated")).isEqualTo(1);
+    }
+
+    private double requests(String cache, String result) {
+        var counter = meterRegistry.find("weather.cache.requests").tag("cache", cache).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}